@@ -0,0 +1,34 @@
+package load;
+
+import java.time.Duration;
+
+/**
+ * Load test settings, read from {@code load.*} system properties (passed as {@code -Pload.*} to the
+ * {@code loadTest} Gradle task).
+ *
+ * @param rps         target arrival rate for the open model, 0 to use {@code vus} instead
+ * @param vus         number of looping virtual users for the closed model
+ * @param rampUp      time to reach the target rate or user count linearly
+ * @param duration    total run time including ramp-up
+ * @param maxInFlight safety cap on concurrently executing iterations
+ * @param scenarios   weighted scenario definition, see {@link Scenarios#parse(String)}
+ * @param seed        seed of the scenario picker, so two runs replay the same scenario mix
+ */
+public record LoadConfig(double rps, int vus, Duration rampUp, Duration duration, int maxInFlight, String scenarios,
+                         long seed) {
+
+    public static LoadConfig fromSystemProperties() {
+        return new LoadConfig(
+                Double.parseDouble(System.getProperty("load.rps", "0")),
+                Integer.parseInt(System.getProperty("load.vus", "10")),
+                Duration.ofSeconds(Long.parseLong(System.getProperty("load.rampUp", "10"))),
+                Duration.ofSeconds(Long.parseLong(System.getProperty("load.duration", "60"))),
+                Integer.parseInt(System.getProperty("load.maxInFlight", "1000")),
+                System.getProperty("load.scenarios", "userLifecycle:3,createCard:1"),
+                Long.parseLong(System.getProperty("load.seed", "42")));
+    }
+
+    public boolean isOpenModel() {
+        return rps > 0;
+    }
+}
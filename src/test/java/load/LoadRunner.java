@@ -0,0 +1,153 @@
+package load;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import utils.LatencyRecorder;
+import utils.MockUtils;
+import utils.TokenProvider;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays the API test flows as weighted scenarios against the environment selected by {@code testEnv}.
+ * <p>
+ * With {@code load.rps} set, iterations are started on an open-model schedule: the arrival times are fixed
+ * up front and latency is measured from the intended start, so a slow server cannot hide its latency by
+ * delaying the next request (coordinated omission). Otherwise {@code load.vus} virtual users loop over
+ * the scenarios back to back (closed model).
+ */
+public class LoadRunner {
+    private static final Logger logger = LogManager.getLogger(LoadRunner.class);
+
+    private final LoadConfig config;
+    private final List<Scenario> scenarios;
+    private final int totalWeight;
+    private final LoadStats stats = new LoadStats();
+
+    public LoadRunner(LoadConfig config) {
+        this.config = config;
+        this.scenarios = Scenarios.parse(config.scenarios());
+        this.totalWeight = scenarios.stream().mapToInt(Scenario::weight).sum();
+    }
+
+    public static void main(String[] args) {
+        LoadConfig config = LoadConfig.fromSystemProperties();
+        logger.info("Starting load run {}", config);
+        // With mock_preload=true the mocks run in this JVM, tuned by the mock_* keys of the env profile
+        MockUtils.preloadIfEnabled();
+        try {
+            new LoadRunner(config).run();
+        } finally {
+            MockUtils.stopAllMockServer();
+        }
+    }
+
+    public LoadStats run() {
+        // Log in once up front so the first iterations do not all wait on the login
+        TokenProvider.getToken();
+        long start = System.nanoTime();
+        if (config.isOpenModel()) {
+            runOpenModel(start);
+        } else {
+            runClosedModel(start);
+        }
+        logger.info("Load run finished\n{}", stats.summary(System.nanoTime() - start));
+        try {
+            LatencyRecorder.writeReport();
+            logger.info("Per-endpoint latency report written to {}", LatencyRecorder.REPORT_PATH);
+        } catch (IOException e) {
+            logger.warn("Cannot write latency report", e);
+        }
+        return stats;
+    }
+
+    private void runOpenModel(long start) {
+        long end = start + config.duration().toNanos();
+        Semaphore inFlight = new Semaphore(config.maxInFlight());
+        Random random = new Random(config.seed());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long arrival = 0; ; arrival++) {
+                long intendedStart = start + arrivalOffsetNanos(arrival);
+                if (intendedStart >= end) {
+                    break;
+                }
+                parkUntil(intendedStart);
+                Scenario scenario = pick(random);
+                executor.submit(() -> {
+                    // Waiting for a permit counts towards latency, the schedule does not slow down
+                    inFlight.acquireUninterruptibly();
+                    try {
+                        execute(scenario, intendedStart);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+    }
+
+    private void runClosedModel(long start) {
+        long end = start + config.duration().toNanos();
+        long rampUpNanos = config.rampUp().toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int user = 0; user < config.vus(); user++) {
+                long userStart = start + rampUpNanos * user / config.vus();
+                Random random = new Random(config.seed() + user);
+                executor.submit(() -> {
+                    parkUntil(userStart);
+                    while (System.nanoTime() < end) {
+                        execute(pick(random), System.nanoTime());
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Start offset of the n-th arrival when the rate grows linearly from 0 to {@code rps} during the ramp-up
+     * and stays constant afterwards.
+     */
+    private long arrivalOffsetNanos(long arrival) {
+        double rampUpSeconds = config.rampUp().toNanos() / 1_000_000_000.0;
+        double rampUpArrivals = config.rps() * rampUpSeconds / 2;
+        double seconds = arrival < rampUpArrivals
+                ? Math.sqrt(2 * rampUpSeconds * arrival / config.rps())
+                : rampUpSeconds + (arrival - rampUpArrivals) / config.rps();
+        return (long) (seconds * 1_000_000_000L);
+    }
+
+    private void execute(Scenario scenario, long intendedStart) {
+        boolean failed = false;
+        try {
+            scenario.flow().run();
+        } catch (RuntimeException | AssertionError e) {
+            failed = true;
+            logger.debug("Scenario {} failed: {}", scenario.name(), e.getMessage());
+        }
+        stats.record(scenario.name(), System.nanoTime() - intendedStart, failed);
+    }
+
+    private Scenario pick(Random random) {
+        int value = random.nextInt(totalWeight);
+        for (Scenario scenario : scenarios) {
+            value -= scenario.weight();
+            if (value < 0) {
+                return scenario;
+            }
+        }
+        throw new IllegalStateException("Scenario weights must be positive");
+    }
+
+    private static void parkUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-scenario iteration latencies and error counts of a load run.
+ */
+public class LoadStats {
+    private final Map<String, ScenarioStats> stats = new ConcurrentHashMap<>();
+
+    private static class ScenarioStats {
+        private final Histogram latencyMicros = new ConcurrentHistogram(3);
+        private final LongAdder errors = new LongAdder();
+    }
+
+    public void record(String scenario, long latencyNanos, boolean failed) {
+        ScenarioStats scenarioStats = stats.computeIfAbsent(scenario, name -> new ScenarioStats());
+        scenarioStats.latencyMicros.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+        if (failed) {
+            scenarioStats.errors.increment();
+        }
+    }
+
+    public String summary(long elapsedNanos) {
+        double elapsedSeconds = elapsedNanos / 1_000_000_000.0;
+        StringBuilder builder = new StringBuilder(String.format("%-16s %8s %8s %8s %10s %10s %10s %10s%n",
+                "scenario", "count", "errors", "rps", "p50(ms)", "p90(ms)", "p99(ms)", "max(ms)"));
+        stats.forEach((name, scenarioStats) -> {
+            Histogram histogram = scenarioStats.latencyMicros;
+            builder.append(String.format("%-16s %8d %8d %8.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    name, histogram.getTotalCount(), scenarioStats.errors.sum(), histogram.getTotalCount() / elapsedSeconds,
+                    histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(90) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0, histogram.getMaxValue() / 1000.0));
+        });
+        return builder.toString();
+    }
+}
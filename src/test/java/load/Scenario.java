@@ -0,0 +1,8 @@
+package load;
+
+/**
+ * One user flow replayed by the {@link LoadRunner}. The flow throws (e.g. a failed {@code statusCode} check)
+ * when an iteration fails.
+ */
+public record Scenario(String name, int weight, Runnable flow) {
+}
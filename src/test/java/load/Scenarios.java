@@ -0,0 +1,82 @@
+package load;
+
+import io.restassured.response.Response;
+import model.dto.card.CreateCardRequest;
+import model.dto.user.UserAddressRequest;
+import model.dto.user.UserRequest;
+import model.dto.user.UserResponse;
+import utils.TestDataGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.lessThan;
+import static testCase.card.CreateCardTest.createCard;
+import static testCase.user.CreateUserTest.createUser;
+import static testCase.user.CreateUserTest.deleteUser;
+import static testCase.user.CreateUserTest.getUser;
+
+/**
+ * The API test flows that can be replayed as load, built from the same helpers and request models as the tests.
+ */
+public class Scenarios {
+    private static final Map<String, Runnable> flows = Map.of(
+            "userLifecycle", Scenarios::userLifecycle,
+            "createCard", Scenarios::createCardForNewUser
+    );
+
+    /**
+     * @param definition comma separated {@code name:weight} pairs, e.g. {@code userLifecycle:3,createCard:1},
+     *                   weights are whole numbers of at least 1 and default to 1
+     */
+    public static List<Scenario> parse(String definition) {
+        List<Scenario> scenarios = new ArrayList<>();
+        for (String item : definition.split(",")) {
+            String[] parts = item.trim().split(":");
+            Runnable flow = flows.get(parts[0]);
+            if (flow == null) {
+                throw new IllegalArgumentException(String.format("Unknown scenario '%s', expected one of %s", parts[0], flows.keySet()));
+            }
+            int weight = parts.length > 1 ? weight(item, parts[1]) : 1;
+            scenarios.add(new Scenario(parts[0], weight, flow));
+        }
+        return scenarios;
+    }
+
+    private static int weight(String item, String value) {
+        int weight;
+        try {
+            weight = Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("Weight of scenario '%s' is not a number", item.trim()), e);
+        }
+        if (weight < 1) {
+            throw new IllegalArgumentException(String.format("Weight of scenario '%s' must be at least 1", item.trim()));
+        }
+        return weight;
+    }
+
+    static void userLifecycle() {
+        UserResponse user = createDefaultUser();
+        getUser(user).then().statusCode(200);
+        deleteUser(user.getId()).then().statusCode(lessThan(400));
+    }
+
+    static void createCardForNewUser() {
+        UserResponse user = createDefaultUser();
+        try {
+            createCard(new CreateCardRequest(user.getId(), "SILVER")).then().statusCode(200);
+        } finally {
+            deleteUser(user.getId());
+        }
+    }
+
+    private static UserResponse createDefaultUser() {
+        UserRequest userRequest = TestDataGenerator.userRequest();
+        userRequest.setAddresses(List.of(UserAddressRequest.getDefault()));
+        Response response = createUser(userRequest);
+        response.then().statusCode(200);
+        return response.body().as(UserResponse.class);
+    }
+}
@@ -0,0 +1,20 @@
+package model.dao.card;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+import java.util.UUID;
+
+/**
+ * Only the columns needed to delete the cards of test users before the users themselves.
+ */
+@Entity
+@Table(name = "cards")
+@Data
+public class CardDao {
+    @Id
+    private UUID id;
+    private UUID customerId;
+}
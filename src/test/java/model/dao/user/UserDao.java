@@ -1,17 +1,22 @@
 package model.dao.user;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "customers")
 @Data
 public class UserDao {
@@ -28,5 +33,6 @@ public class UserDao {
     @JsonIgnore
     private LocalDateTime updatedAt;
     @OneToMany(mappedBy = "customerId")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private List<AddressDao> addresses;
 }
@@ -1,5 +1,6 @@
 package model.dto.graphql;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -9,7 +10,14 @@ import java.util.Map;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class QueryRequest {
     private String query;
     private Map<String, ?> variables;
+    private String operationName;
+    private Map<String, ?> extensions;
+
+    public QueryRequest(String query, Map<String, ?> variables) {
+        this(query, variables, null, null);
+    }
 }
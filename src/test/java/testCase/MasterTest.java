@@ -1,44 +1,43 @@
 package testCase;
 
-import io.restassured.RestAssured;
-import io.restassured.response.Response;
-import model.dto.login.LoginRequest;
-import model.dto.login.LoginResponse;
-import org.apache.commons.lang3.StringUtils;
+import io.qameta.allure.Allure;
+import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.extension.ExtendWith;
+import utils.CleanupExtension;
+import utils.DbExtension;
+import utils.DbUtils;
+import utils.HttpClientUtils;
+import utils.JsonSchemaUtils;
+import utils.LatencyBudgetExtension;
+import utils.LatencyReportExtension;
+import utils.RequestLogExtension;
+import utils.ResponseCache;
+import utils.TokenProvider;
 
-import java.time.LocalDateTime;
-
-import static utils.ConstantUtils.*;
-
+@ExtendWith({DbExtension.class, CleanupExtension.class, RequestLogExtension.class, LatencyReportExtension.class, LatencyBudgetExtension.class})
 public class MasterTest {
-    public static String token;
-    private static int tokenTimeout;
-    private static LocalDateTime retrieveTokenMoment;
 
     public MasterTest() {
     }
 
     @BeforeAll
     public static void globalSetup() {
-        RestAssured.baseURI = HOST;
-        RestAssured.port = PORT;
+        JsonSchemaUtils.preloadIfEnabled();
     }
 
     @BeforeEach
     public void globalBeforeEach() {
-        if (StringUtils.isAllBlank(token) || retrieveTokenMoment.plusNanos(tokenTimeout).isAfter(LocalDateTime.now())) {
-            LoginRequest loginRequest = new LoginRequest("staff", "1234567890");
-            Response response = RestAssured.given().log().all()
-                    .header(CONTENT_TYPE_HEADER, REQUEST_CONTENT_TYPE_HEADER_VALUE)
-                    .body(loginRequest)
-                    .post(LOGIN_API);
-            response.then().log().all().statusCode(200);
-            LoginResponse loginResponse = response.body().as(LoginResponse.class);
-            token = String.format("Bearer %s", loginResponse.getToken());
-            tokenTimeout = loginResponse.getTimeout() * 80 / 100;
-            retrieveTokenMoment = LocalDateTime.now();
-        }
+        //Login failures surface in setup instead of in the middle of a test
+        TokenProvider.getToken();
+    }
+
+    @AfterAll
+    public static void globalTearDown() {
+        //Leased/available connections show whether the pooled client is reused
+        Allure.addAttachment("HTTP connection pool", HttpClientUtils.getPoolStats().toString());
+        Allure.addAttachment("Response cache", ResponseCache.getStats().toString());
+        Allure.addAttachment("DB cache", DbUtils.getCacheStats());
     }
 }
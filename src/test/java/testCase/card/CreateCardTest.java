@@ -4,66 +4,42 @@ import io.restassured.RestAssured;
 import io.restassured.response.Response;
 import model.dto.card.CreateCardRequest;
 import model.dto.card.CreateCardResponse;
-import model.dto.user.UserAddressRequest;
 import model.dto.user.UserRequest;
-import model.dto.user.UserResponse;
-import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import testCase.MasterTest;
 import utils.MockUtils;
+import utils.UserFixturePool;
+import utils.UserFixturePool.PooledUser;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.equalToObject;
-import static testCase.user.CreateUserTest.createUser;
 import static utils.ConstantUtils.*;
-import static utils.ConstantUtils.DELETE_USER_API;
+import static utils.RequestSpecUtils.apiSpec;
+import static utils.TokenProvider.getToken;
 
 public class CreateCardTest extends MasterTest {
-    private static List<String> ids = new ArrayList<>();
 
     @BeforeAll
     static void setUp() {
         MockUtils.startAllMockServer();
-    }
-
-    @AfterAll
-    static void tearDown() {
-        for (String id : ids) {
-            RestAssured.given().log().all()
-                    .header(CONTENT_TYPE_HEADER, REQUEST_CONTENT_TYPE_HEADER_VALUE)
-                    .header(AUTHORIZATION_HEADER, token)
-                    .delete(DELETE_USER_API, id)
-                    .then()
-                    .log()
-                    .all();
-        }
+        //Users for the tests below, provisioned together before the first test starts (user_pool_size)
+        UserFixturePool.prefill();
     }
 
     @Test
     void verifyCreateCardSuccessful() {
-        UserAddressRequest userAddressRequest = UserAddressRequest.getDefault();
-        //Precondition - Create user
-        UserRequest userRequest = UserRequest.getDefault();
-        userRequest.setEmail(String.format(EMAIL_TEMPLATE, System.currentTimeMillis()));
-        userRequest.setAddresses(List.of(userAddressRequest));
-        Response createUserResponse = createUser(userRequest);
-        createUserResponse.then().log().all().statusCode(200);
-        UserResponse createUserObj = createUserResponse.body().as(UserResponse.class);
+        //Precondition - A user from the pool, no need to create one per test
+        PooledUser user = UserFixturePool.acquireExclusive();
+        UserRequest userRequest = user.request();
         //Create Card
-        CreateCardRequest cardRequest = new CreateCardRequest(createUserObj.getId(), "SILVER");
-        Response createCardResponse = RestAssured.given().log().all()
-                .header(AUTHORIZATION_HEADER, token)
-                .header(CONTENT_TYPE_HEADER, REQUEST_CONTENT_TYPE_HEADER_VALUE)
-                .body(cardRequest)
-                .post(CREATE_CARD_API);
+        CreateCardRequest cardRequest = new CreateCardRequest(user.id(), "SILVER");
+        Response createCardResponse = createCard(cardRequest);
         //Verify status
-        createCardResponse.then().log().all().statusCode(200);
+        createCardResponse.then().statusCode(200);
         //Verify headers
         createCardResponse.then().header(X_POWERED_BY_HEADER, equalTo(X_POWERED_BY_HEADER_VALUE))
                 .header(CONTENT_TYPE_HEADER, equalTo(RESPONSE_CONTENT_TYPE_HEADER_VALUE));
@@ -73,4 +49,12 @@ public class CreateCardTest extends MasterTest {
                 "1111 2222 3333 4444", "01-23-2028");
         assertThat(actualCard, equalToObject(expected));
     }
+
+    public static Response createCard(CreateCardRequest cardRequest) {
+        return RestAssured.given(apiSpec())
+                .header(AUTHORIZATION_HEADER, getToken())
+                .header(CONTENT_TYPE_HEADER, REQUEST_CONTENT_TYPE_HEADER_VALUE)
+                .body(cardRequest)
+                .post(CREATE_CARD_API);
+    }
 }
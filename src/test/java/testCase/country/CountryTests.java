@@ -14,35 +14,38 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import testCase.MasterTest;
+import utils.LatencyBudget;
+import utils.MultisetDiff;
+import utils.ResponseCache;
 
 import java.util.List;
 
 import java.util.stream.Stream;
 
-import static io.restassured.module.jsv.JsonSchemaValidator.matchesJsonSchemaInClasspath;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static utils.ConcurrentRequestUtils.sendAll;
 import static utils.ConstantUtils.*;
+import static utils.JsonSchemaUtils.matchesCompiledJsonSchema;
+import static utils.LatencyBudgets.withinLatencyBudget;
+import static utils.MultisetDiff.containsSameElementsAs;
+import static utils.RequestSpecUtils.apiSpec;
 
 public class CountryTests extends MasterTest {
 
 
     @Test
     void verifySchemaOfGetCountriesApi() {
-        RestAssured.given().log().all()
-                .get(GET_COUNTRIES_API)
-                .then()
-                .log().all()
-                .statusCode(200)
-                .assertThat().body(matchesJsonSchemaInClasspath("json-schema/countries-schema.json"));
+        Response response = getCountries();
+        response.then().statusCode(200);
+        assertThat(response, matchesCompiledJsonSchema("json-schema/countries-schema.json"));
     }
 
     @Test
     void verifyGetCountriesApiData() throws JsonProcessingException {
-        Response response = RestAssured.given().log().all()
-                .get(GET_COUNTRIES_API);
+        Response response = getCountries();
         //1. Verify status
-        response.then().log().all().statusCode(200);
+        response.then().statusCode(200);
         //2. Verify headers
         response.then().header(X_POWERED_BY_HEADER, equalTo(X_POWERED_BY_HEADER_VALUE))
                 .header(CONTENT_TYPE_HEADER, equalTo(CONTENT_TYPE_HEADER_VALUE));
@@ -53,18 +56,21 @@ public class CountryTests extends MasterTest {
         List<Country> actual = response.body().as(new TypeRef<>() {
         });
         assertThat(actual.size(), equalTo(expected.size()));
-        assertThat(actual.containsAll(expected), equalTo(true));
-        assertThat(expected.containsAll(actual), equalTo(true));
+        assertThat(actual, containsSameElementsAs(expected));
     }
 
     @Test
     void verifySchemaOfGetCountryApi() {
-        RestAssured.given().log().all()
-                .get(GET_COUNTRY_API, "VN")
-                .then()
-                .log().all()
-                .statusCode(200)
-                .assertThat().body(matchesJsonSchemaInClasspath("json-schema/country-schema.json"));
+        Response response = RestAssured.given(apiSpec())
+                .get(GET_COUNTRY_API, "VN");
+        response.then().statusCode(200);
+        assertThat(response, matchesCompiledJsonSchema("json-schema/country-schema.json"));
+    }
+
+    // Reference data, so one request serves every test that reads the full list
+    private static Response getCountries() {
+        return ResponseCache.get("GET " + GET_COUNTRIES_API, () -> RestAssured.given(apiSpec())
+                .get(GET_COUNTRIES_API));
     }
 
     static Stream<Country> countryProvider() throws JsonProcessingException {
@@ -76,11 +82,12 @@ public class CountryTests extends MasterTest {
 
     @ParameterizedTest
     @MethodSource("countryProvider")
+    @LatencyBudget("get_country")
     void verifyGetCountry(Country input) {
-        Response response = RestAssured.given().log().all()
+        Response response = RestAssured.given(apiSpec())
                 .get(GET_COUNTRY_API, input.getCode());
         //1. Verify status
-        response.then().log().all().statusCode(200);
+        response.then().statusCode(200);
         //2. Verify headers
         response.then().header(X_POWERED_BY_HEADER, equalTo(X_POWERED_BY_HEADER_VALUE))
                 .header(CONTENT_TYPE_HEADER, equalTo(CONTENT_TYPE_HEADER_VALUE));
@@ -89,27 +96,43 @@ public class CountryTests extends MasterTest {
         assertThat(actual, equalToObject(input));
     }
 
+    @Test
+    void verifyGetCountriesConcurrently() throws JsonProcessingException {
+        List<Country> inputData = countryProvider().toList();
+        List<Response> responses = sendAll(inputData, input -> RestAssured.given(apiSpec())
+                .get(GET_COUNTRY_API, input.getCode()));
+        for (int i = 0; i < inputData.size(); i++) {
+            Response response = responses.get(i);
+            //1. Verify status
+            response.then().statusCode(200);
+            //2. Verify headers
+            response.then().header(X_POWERED_BY_HEADER, equalTo(X_POWERED_BY_HEADER_VALUE))
+                    .header(CONTENT_TYPE_HEADER, equalTo(CONTENT_TYPE_HEADER_VALUE));
+            //3. Verify body
+            Country actual = response.body().as(Country.class);
+            assertThat(actual, equalToObject(inputData.get(i)));
+        }
+    }
+
     @Test
     void verifySchemaOfGetCountryApiWithFilter() {
-        RestAssured.given().log().all()
+        Response response = RestAssured.given(apiSpec())
                 .queryParam(GDP_FILTER, 5000)
                 .queryParam(OPERATOR_FILTER, ">")
-                .get(GET_COUNTRY_WITH_FILTER_API)
-                .then()
-                .log().all()
-                .statusCode(200)
-                .assertThat().body(matchesJsonSchemaInClasspath("json-schema/country-with-filters-schema.json"));
+                .get(GET_COUNTRY_WITH_FILTER_API);
+        response.then().statusCode(200);
+        assertThat(response, matchesCompiledJsonSchema("json-schema/country-with-filters-schema.json"));
     }
 
     @Test
     void verifyGetCountryApiWithFilterGreaterThan() {
-        Response response = RestAssured.given().log().all()
+        Response response = RestAssured.given(apiSpec())
                 .queryParam(GDP_FILTER, 5000)
                 .queryParam(OPERATOR_FILTER, ">")
                 .get(GET_COUNTRY_WITH_FILTER_API);
 
         //1. Verify status
-        response.then().log().all().statusCode(200);
+        response.then().statusCode(200);
         //2. Verify headers
         response.then().header(X_POWERED_BY_HEADER, equalTo(X_POWERED_BY_HEADER_VALUE))
                 .header(CONTENT_TYPE_HEADER, equalTo(CONTENT_TYPE_HEADER_VALUE));
@@ -134,13 +157,13 @@ public class CountryTests extends MasterTest {
     @ParameterizedTest
     @MethodSource("getCountryWithFilterProvider")
     void verifyGetCountryApiWithFilter(String operator, int gdp, Matcher expected) {
-        Response response = RestAssured.given().log().all()
+        Response response = RestAssured.given(apiSpec())
                 .queryParam(GDP_FILTER, gdp)
                 .queryParam(OPERATOR_FILTER, operator)
                 .get(GET_COUNTRY_WITH_FILTER_API);
 
         //1. Verify status
-        response.then().log().all().statusCode(200);
+        response.then().statusCode(200);
         //2. Verify headers
         response.then().header(X_POWERED_BY_HEADER, equalTo(X_POWERED_BY_HEADER_VALUE))
                 .header(CONTENT_TYPE_HEADER, equalTo(CONTENT_TYPE_HEADER_VALUE));
@@ -154,11 +177,9 @@ public class CountryTests extends MasterTest {
 
     @Test
     void verifySchemaOfGetCountryApiWithPagination() {
-        getCountryApiWithPagination(1, 4)
-                .then()
-                .log().all()
-                .statusCode(200)
-                .assertThat().body(matchesJsonSchemaInClasspath("json-schema/country-pagination-schema.json"));
+        Response response = getCountryApiWithPagination(1, 4);
+        response.then().statusCode(200);
+        assertThat(response, matchesCompiledJsonSchema("json-schema/country-pagination-schema.json"));
     }
 
     @Test
@@ -167,7 +188,8 @@ public class CountryTests extends MasterTest {
         Response response = getCountryApiWithPagination(1, testSize);
         //0. Get first page
         //1. Verify status
-        response.then().log().all().statusCode(200);
+        response.then().statusCode(200);
+        response.then().spec(withinLatencyBudget("get_country_pagination"));
         //2. Verify headers
         response.then().header(X_POWERED_BY_HEADER, equalTo(X_POWERED_BY_HEADER_VALUE))
                 .header(CONTENT_TYPE_HEADER, equalTo(CONTENT_TYPE_HEADER_VALUE));
@@ -176,13 +198,14 @@ public class CountryTests extends MasterTest {
         verifyPage(actualDataFirstPage, 1, testSize, testSize);
         //4. Get second page
         response = getCountryApiWithPagination(2, testSize);
-        response.then().log().all().statusCode(200);
+        response.then().statusCode(200);
         CountryPagination actualDataSecondPage = response.body().as(CountryPagination.class);
         verifyPage(actualDataSecondPage, 2, testSize, testSize);
 
         //5. Verify data from first page vs second page
-        assertThat(actualDataFirstPage.getData().containsAll(actualDataSecondPage.getData()), equalTo(false));
-        assertThat(actualDataSecondPage.getData().containsAll(actualDataFirstPage.getData()), equalTo(false));
+        MultisetDiff<Country> pagesDiff = MultisetDiff.compare(actualDataFirstPage.getData(), actualDataSecondPage.getData());
+        assertThat(pagesDiff.getExtra(), not(empty()));
+        assertThat(pagesDiff.getMissing(), not(empty()));
         //6. Verify last page
         int lastPage = actualDataSecondPage.getTotal() / testSize;
         int sizeOfLastPage = actualDataSecondPage.getTotal() % testSize;
@@ -203,7 +226,7 @@ public class CountryTests extends MasterTest {
     }
 
     private static Response getCountryApiWithPagination(int page, int size) {
-        return RestAssured.given().log().all()
+        return RestAssured.given(apiSpec())
                 .queryParam(PAGE, page)
                 .queryParam(SIZE, size)
                 .get(GET_COUNTRY_WITH_PAGINATION_API);
@@ -211,13 +234,11 @@ public class CountryTests extends MasterTest {
 
     @Test
     void verifySchemaOfGetCountryApiWithHeaders() {
-        RestAssured.given().log().all()
+        Response response = RestAssured.given(apiSpec())
                 .header(API_KEY_HEADER, API_KEY_HEADER_VALUE)
-                .get(GET_COUNTRY_WITH_HEADER_API)
-                .then()
-                .log().all()
-                .statusCode(200)
-                .assertThat().body(matchesJsonSchemaInClasspath("json-schema/country-header-schema.json"));
+                .get(GET_COUNTRY_WITH_HEADER_API);
+        response.then().statusCode(200);
+        assertThat(response, matchesCompiledJsonSchema("json-schema/country-header-schema.json"));
     }
 
 
@@ -1,51 +1,85 @@
 package testCase.graphql;
 
-import io.restassured.RestAssured;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.restassured.response.Response;
-import model.dto.graphql.QueryRequest;
+import model.dto.country.Country;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import testCase.country.CountriesData;
+import utils.GraphqlUtils;
+import utils.GraphqlUtils.BatchMode;
 import utils.IFileUtils;
+import utils.LatencyReportExtension;
+import utils.MockUtils;
+import utils.RequestLogExtension;
+import utils.StreamingJsonComparator;
+import utils.StreamingJsonComparator.Difference;
 
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.util.HashMap;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Map;
 
-import static net.javacrumbs.jsonunit.JsonMatchers.jsonEquals;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
 import static utils.ConstantUtils.CONTENT_TYPE_HEADER;
-import static utils.ConstantUtils.REQUEST_CONTENT_TYPE_HEADER_VALUE;
 
+@ExtendWith({RequestLogExtension.class, LatencyReportExtension.class})
 public class CountryQueryTest {
+    private static final int MAX_REPORTED_DIFFERENCES = 20;
+
     @BeforeAll
-    static void setup() {
-        RestAssured.baseURI = "https://countries.trevorblades.com";
-        RestAssured.port = 443;
+    static void setUp() {
+        MockUtils.startGraphqlServerIfEnabled();
+        GraphqlUtils.loadOperations();
     }
 
     @Test
     void verifyCountryQuery() throws IOException {
-        String queryFilePath = "graphql/graphql-query/country-query.graphql";
-        String queryString = IFileUtils.readFileFromResources(queryFilePath);
-        QueryRequest queryRequest = new QueryRequest();
-        queryRequest.setQuery(queryString);
-        Map<String, String> variables = new HashMap<>();
-        variables.put("code", "VN");
-        queryRequest.setVariables(variables);
-        Response response = RestAssured.given().log().all()
-                .header(CONTENT_TYPE_HEADER, REQUEST_CONTENT_TYPE_HEADER_VALUE)
-                .body(queryRequest)
-                .post();
+        Response response = GraphqlUtils.execute("country-query", Map.of("code", "VN"));
         //Schema
         //Status code
-        response.then().log().all().statusCode(200);
+        response.then().statusCode(200);
         //Headers
         response.then().header(CONTENT_TYPE_HEADER, "application/json; charset=utf-8");
         //Body
-        String actual = response.body().asString();
         String expectedPath = "graphql/expected/countryQueryExpected.json";
-        String expected = IFileUtils.readFileFromResources(expectedPath);
-        assertThat(actual, jsonEquals(expected));
+        try (InputStream expected = IFileUtils.openResourceStream(expectedPath)) {
+            List<Difference> differences = StreamingJsonComparator.compare(expected, response.asInputStream(), MAX_REPORTED_DIFFERENCES);
+            assertThat(differences, empty());
+        }
+    }
+
+    @Test
+    void verifyCountryQueryBatch() throws IOException {
+        List<Country> countries = new ObjectMapper().readValue(CountriesData.ALL_COUNTRIES_DATA, new TypeReference<>() {
+        });
+        List<Map<String, String>> variableSets = countries.stream()
+                .map(country -> Map.of("code", country.getCode()))
+                .toList();
+        List<JsonNode> results = GraphqlUtils.executeBatch("country-query", variableSets, BatchMode.ALIASES);
+        assertThat(results.size(), equalTo(countries.size()));
+        for (int i = 0; i < countries.size(); i++) {
+            JsonNode result = results.get(i);
+            String code = countries.get(i).getCode();
+            assertThat(code, result.path("errors").isMissingNode(), is(true));
+            assertThat(result.path("data").path("country").path("code").asText(), equalTo(code));
+        }
+        //Body of the case with a stored expectation
+        int vietnam = variableSets.indexOf(Map.of("code", "VN"));
+        String expectedPath = "graphql/expected/countryQueryExpected.json";
+        try (InputStream expected = IFileUtils.openResourceStream(expectedPath);
+             InputStream actual = new ByteArrayInputStream(results.get(vietnam).toString().getBytes(StandardCharsets.UTF_8))) {
+            List<Difference> differences = StreamingJsonComparator.compare(expected, actual, MAX_REPORTED_DIFFERENCES);
+            assertThat(differences, empty());
+        }
     }
 }
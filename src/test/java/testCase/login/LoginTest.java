@@ -13,35 +13,34 @@ import testCase.MasterTest;
 
 import java.util.stream.Stream;
 
-import static io.restassured.module.jsv.JsonSchemaValidator.matchesJsonSchemaInClasspath;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static utils.ConstantUtils.*;
+import static utils.JsonSchemaUtils.matchesCompiledJsonSchema;
+import static utils.RequestSpecUtils.apiSpec;
 
 public class LoginTest extends MasterTest {
 
     @Test
     void verifySchemaOfLoginApi() {
         LoginRequest loginRequest = new LoginRequest("staff", "1234567890");
-        RestAssured.given().log().all()
+        Response response = RestAssured.given(apiSpec())
                 .header(CONTENT_TYPE_HEADER, REQUEST_CONTENT_TYPE_HEADER_VALUE)
                 .body(loginRequest)
-                .post(LOGIN_API)
-                .then()
-                .log().all()
-                .statusCode(200)
-                .assertThat().body(matchesJsonSchemaInClasspath("json-schema/login-schema.json"));
+                .post(LOGIN_API);
+        response.then().statusCode(200);
+        assertThat(response, matchesCompiledJsonSchema("json-schema/login-schema.json"));
     }
 
     @Test
     void verifyLoginSuccessful() {
         LoginRequest loginRequest = new LoginRequest("staff", "1234567890");
-        Response response = RestAssured.given().log().all()
+        Response response = RestAssured.given(apiSpec())
                 .header(CONTENT_TYPE_HEADER, REQUEST_CONTENT_TYPE_HEADER_VALUE)
                 .body(loginRequest)
                 .post(LOGIN_API);
         //1. Verify status code
-        response.then().log().all().statusCode(200);
+        response.then().statusCode(200);
         //2. Verify header
         response.then().header(X_POWERED_BY_HEADER, equalTo(X_POWERED_BY_HEADER_VALUE))
                 .header(CONTENT_TYPE_HEADER, equalTo(RESPONSE_CONTENT_TYPE_HEADER_VALUE));
@@ -64,12 +63,12 @@ public class LoginTest extends MasterTest {
     @ParameterizedTest
     @MethodSource("loginProvider")
     void verifyLoginFail(LoginRequest loginRequest) {
-        Response response = RestAssured.given().log().all()
+        Response response = RestAssured.given(apiSpec())
                 .header(CONTENT_TYPE_HEADER, REQUEST_CONTENT_TYPE_HEADER_VALUE)
                 .body(loginRequest)
                 .post(LOGIN_API);
         //1. Verify status code
-        response.then().log().all().statusCode(401);
+        response.then().statusCode(401);
         //2. Verify header
         response.then().header(X_POWERED_BY_HEADER, equalTo(X_POWERED_BY_HEADER_VALUE))
                 .header(CONTENT_TYPE_HEADER, equalTo(RESPONSE_CONTENT_TYPE_HEADER_VALUE));
@@ -5,39 +5,28 @@ import io.restassured.response.Response;
 import model.dao.user.AddressDao;
 import model.dao.user.UserDao;
 import model.dto.user.*;
-import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.Test;
 import testCase.MasterTest;
+import utils.TestDataGenerator;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 
 import static net.javacrumbs.jsonunit.JsonMatchers.jsonEquals;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static utils.CleanupRegistry.registerUser;
 import static utils.ConstantUtils.*;
+import static utils.RequestSpecUtils.apiSpec;
 import static utils.DateTimeUtils.parseTimeToCurrentTimeZone;
 import static utils.DateTimeUtils.verifyDateTime;
-import static utils.DbUtils.getUserFromDb;
+import static utils.DbAwait.awaitUser;
+import static utils.LatencyBudgets.withinLatencyBudget;
+import static utils.TokenProvider.getToken;
 
 public class CreateUserTest extends MasterTest {
     private static final String[] IGNORE_FIELDS = {"id", "createdAt", "updatedAt", "addresses[*].id", "addresses[*].customerId",
             "addresses[*].createdAt", "addresses[*].updatedAt"};
-    private static List<String> ids = new ArrayList<>();
-
-    @AfterAll
-    static void tearDown() {
-        for (String id : ids) {
-            RestAssured.given().log().all()
-                    .header(CONTENT_TYPE_HEADER, REQUEST_CONTENT_TYPE_HEADER_VALUE)
-                    .header(AUTHORIZATION_HEADER, token)
-                    .delete(DELETE_USER_API, id)
-                    .then()
-                    .log()
-                    .all();
-        }
-    }
 
     @Test
     void verifyCreateUserSchema() {
@@ -51,14 +40,15 @@ public class CreateUserTest extends MasterTest {
         UserAddressRequest userAddressRequest = UserAddressRequest.getDefault();
         //Create user
         UserRequest userRequest = UserRequest.getDefault();
-        userRequest.setEmail(String.format(EMAIL_TEMPLATE, System.currentTimeMillis()));
+        userRequest.setEmail(TestDataGenerator.email());
         userRequest.setAddresses(List.of(userAddressRequest));
 
         LocalDateTime timeBeforeCreate = LocalDateTime.now();
 
         Response createUserResponse = createUser(userRequest);
         //1. Verify status code
-        createUserResponse.then().log().all().statusCode(200);
+        createUserResponse.then().statusCode(200);
+        createUserResponse.then().spec(withinLatencyBudget("create_user"));
         //3. Verify headers
         createUserResponse.then().header(X_POWERED_BY_HEADER, equalTo(X_POWERED_BY_HEADER_VALUE))
                 .header(CONTENT_TYPE_HEADER, equalTo(RESPONSE_CONTENT_TYPE_HEADER_VALUE));
@@ -66,12 +56,12 @@ public class CreateUserTest extends MasterTest {
         UserResponse userResponse = createUserResponse.body().as(UserResponse.class);
         assertThat(userResponse.getId(), not(emptyOrNullString()));
         assertThat(userResponse.getMessage(), equalTo("Customer created"));
-        ids.add(userResponse.getId());
+        registerUser(userResponse.getId());
         //5. Double check that user existing in the system or not by getUserApi
         Response getUserResponse = getUser(userResponse);
         LocalDateTime timeAfterCreate = LocalDateTime.now();
         //6. Verify status
-        getUserResponse.then().log().all().statusCode(200);
+        getUserResponse.then().statusCode(200);
         //7. Verify get user response again request
         GetUserResponse actualGetUserResponse = getUserResponse.body().as(GetUserResponse.class);
         assertThat(actualGetUserResponse.getId(), equalTo(userResponse.getId()));
@@ -102,13 +92,13 @@ public class CreateUserTest extends MasterTest {
         userAddressRequest2.setStreetNumber("456");
         //Create user
         UserRequest userRequest = UserRequest.getDefault();
-        userRequest.setEmail(String.format(EMAIL_TEMPLATE, System.currentTimeMillis()));
+        userRequest.setEmail(TestDataGenerator.email());
         userRequest.setAddresses(List.of(userAddressRequest1, userAddressRequest2));
         LocalDateTime timeBeforeCreate = LocalDateTime.now();
 
         Response createUserResponse = createUser(userRequest);
         //1. Verify status code
-        createUserResponse.then().log().all().statusCode(200);
+        createUserResponse.then().statusCode(200);
         //3. Verify headers
         createUserResponse.then().header(X_POWERED_BY_HEADER, equalTo(X_POWERED_BY_HEADER_VALUE))
                 .header(CONTENT_TYPE_HEADER, equalTo(RESPONSE_CONTENT_TYPE_HEADER_VALUE));
@@ -116,13 +106,13 @@ public class CreateUserTest extends MasterTest {
         UserResponse userResponse = createUserResponse.body().as(UserResponse.class);
         assertThat(userResponse.getId(), not(emptyOrNullString()));
         assertThat(userResponse.getMessage(), equalTo("Customer created"));
-        ids.add(userResponse.getId());
+        registerUser(userResponse.getId());
 
         //5. Double check that user existing in the system or not by getUserApi
         Response getUserResponse = getUser(userResponse);
         LocalDateTime timeAfterCreate = LocalDateTime.now();
         //6. Verify status
-        getUserResponse.then().log().all().statusCode(200);
+        getUserResponse.then().statusCode(200);
         //7. Verify get user response again request
         GetUserResponse actualGetUserResponse = getUserResponse.body().as(GetUserResponse.class);
         assertThat(actualGetUserResponse.getId(), equalTo(userResponse.getId()));
@@ -151,12 +141,12 @@ public class CreateUserTest extends MasterTest {
         UserAddressRequest userAddressRequest = UserAddressRequest.getDefault();
         //Create user
         UserRequest userRequest = UserRequest.getDefault();
-        userRequest.setEmail(String.format(EMAIL_TEMPLATE, System.currentTimeMillis()));
+        userRequest.setEmail(TestDataGenerator.email());
         userRequest.setAddresses(List.of(userAddressRequest));
         LocalDateTime timeBeforeCreate = LocalDateTime.now();
         Response createUserResponse = createUser(userRequest);
         //1. Verify status code
-        createUserResponse.then().log().all().statusCode(200);
+        createUserResponse.then().statusCode(200);
         //3. Verify headers
         createUserResponse.then().header(X_POWERED_BY_HEADER, equalTo(X_POWERED_BY_HEADER_VALUE))
                 .header(CONTENT_TYPE_HEADER, equalTo(RESPONSE_CONTENT_TYPE_HEADER_VALUE));
@@ -164,14 +154,14 @@ public class CreateUserTest extends MasterTest {
         UserResponse userResponse = createUserResponse.body().as(UserResponse.class);
         assertThat(userResponse.getId(), not(emptyOrNullString()));
         assertThat(userResponse.getMessage(), equalTo("Customer created"));
-        ids.add(userResponse.getId());
+        registerUser(userResponse.getId());
         //5. Double check that user existing in the system or not by getUserApi
         Response getUserResponse = getUser(userResponse);
         LocalDateTime timeAfterCreate = LocalDateTime.now();
         //6. Verify status
-        getUserResponse.then().log().all().statusCode(200);
-        //7. Verify user has been saved successful in DB
-        UserDao actualUserDb = getUserFromDb(userResponse.getId());
+        getUserResponse.then().statusCode(200);
+        //7. Verify user has been saved successful in DB, waiting for replication instead of sleeping
+        UserDao actualUserDb = awaitUser(userResponse.getId());
         assertThat(actualUserDb, jsonEquals(userRequest)
                 .whenIgnoringPaths(IGNORE_FIELDS));
         verifyDateTime(timeBeforeCreate, timeAfterCreate, actualUserDb.getCreatedAt());
@@ -185,17 +175,24 @@ public class CreateUserTest extends MasterTest {
         }
     }
 
-    private static Response getUser(UserResponse userResponse) {
-        return RestAssured.given().log().all()
+    public static Response getUser(UserResponse userResponse) {
+        return RestAssured.given(apiSpec())
                 .header(CONTENT_TYPE_HEADER, REQUEST_CONTENT_TYPE_HEADER_VALUE)
-                .header(AUTHORIZATION_HEADER, token)
+                .header(AUTHORIZATION_HEADER, getToken())
                 .get(GET_USER_API, userResponse.getId());
     }
 
+    public static Response deleteUser(String userId) {
+        return RestAssured.given(apiSpec())
+                .header(CONTENT_TYPE_HEADER, REQUEST_CONTENT_TYPE_HEADER_VALUE)
+                .header(AUTHORIZATION_HEADER, getToken())
+                .delete(DELETE_USER_API, userId);
+    }
+
     public static Response createUser(UserRequest userRequest) {
-        return RestAssured.given().log().all()
+        return RestAssured.given(apiSpec())
                 .header(CONTENT_TYPE_HEADER, REQUEST_CONTENT_TYPE_HEADER_VALUE)
-                .header(AUTHORIZATION_HEADER, token)
+                .header(AUTHORIZATION_HEADER, getToken())
                 .body(userRequest)
                 .post(CREATE_USER_API);
     }
@@ -0,0 +1,27 @@
+package utils;
+
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+/**
+ * Records every call into the {@link RequestLogBuffer} of the running test instead of printing it.
+ */
+public class BufferedLoggingFilter implements Filter {
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        Response response;
+        try {
+            response = ctx.next(requestSpec, responseSpec);
+        } catch (RuntimeException e) {
+            RequestLogBuffer.record(requestSpec, null, e);
+            throw e;
+        }
+        RequestLogBuffer.record(requestSpec, response, null);
+        return response;
+    }
+}
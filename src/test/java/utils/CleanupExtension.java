@@ -0,0 +1,25 @@
+package utils;
+
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+/**
+ * Runs the {@link CleanupRegistry} once the whole test run is finished.
+ */
+public class CleanupExtension implements BeforeAllCallback {
+
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        // Resources of the root store are closed after the last test of the run
+        context.getRoot().getStore(ExtensionContext.Namespace.GLOBAL)
+                .getOrComputeIfAbsent(Cleanup.class, key -> new Cleanup(), Cleanup.class);
+    }
+
+    static class Cleanup implements ExtensionContext.Store.CloseableResource {
+
+        @Override
+        public void close() {
+            CleanupRegistry.cleanup();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package utils;
+
+import io.restassured.RestAssured;
+import io.restassured.response.Response;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static utils.ConstantUtils.*;
+import static utils.RequestSpecUtils.apiSpec;
+import static utils.TokenProvider.getToken;
+
+/**
+ * Collects the ids of users created by tests and deletes them all once, when the run is finished
+ * (see {@link CleanupExtension}), instead of every test class deleting its own users one by one.
+ * <p>
+ * {@code cleanup_mode} selects how:
+ * <ul>
+ *     <li>{@code api} (default): {@code DELETE_USER_API} calls, {@code cleanup_max_concurrency} at a time</li>
+ *     <li>{@code db}: set-based deletes of {@code customers}, {@code cards} and {@code addresses} through
+ *     {@link DbUtils}, followed by a sweep of the {@link ConstantUtils#EMAIL_TEMPLATE} users left behind by earlier runs
+ *     when {@code cleanup_sweep=true}. Only users created more than {@code cleanup_sweep_min_age_hours}
+ *     before this JVM started are swept, so runs still in progress keep theirs</li>
+ *     <li>{@code none}: keep the data, e.g. to debug it after the run</li>
+ * </ul>
+ */
+public class CleanupRegistry {
+    private static final Logger logger = LogManager.getLogger(CleanupRegistry.class);
+    private static final String MODE = EnvUtils.Env().get("cleanup_mode", "api");
+    private static final int MAX_CONCURRENCY = Integer.parseInt(EnvUtils.Env().get("cleanup_max_concurrency", "16"));
+    private static final boolean SWEEP = Boolean.parseBoolean(EnvUtils.Env().get("cleanup_sweep", "false"));
+    private static final long SWEEP_MIN_AGE_HOURS = Long.parseLong(EnvUtils.Env().get("cleanup_sweep_min_age_hours", "24"));
+    private static final Queue<String> userIds = new ConcurrentLinkedQueue<>();
+
+    private CleanupRegistry() {
+    }
+
+    public static void registerUser(String userId) {
+        userIds.add(userId);
+    }
+
+    /**
+     * Deletes everything registered so far, called once at the end of the run. Users are only provisioned
+     * on test threads (see {@link UserFixturePool}), so nothing registers after the last test finished.
+     */
+    public static void cleanup() {
+        List<String> ids = new ArrayList<>();
+        for (String id = userIds.poll(); id != null; id = userIds.poll()) {
+            ids.add(id);
+        }
+        switch (MODE) {
+            case "none" -> logger.info("cleanup_mode=none, keeping {} users", ids.size());
+            case "db" -> {
+                int deleted = DbUtils.deleteUsers(ids);
+                if (SWEEP) {
+                    deleted += DbUtils.deleteUsersByEmailPrefix(EMAIL_TEMPLATE.substring(0, EMAIL_TEMPLATE.indexOf("%s")), sweepCutoff());
+                }
+                logger.info("Deleted {} users from the database", deleted);
+            }
+            default -> deleteByApi(ids);
+        }
+    }
+
+    private static LocalDateTime sweepCutoff() {
+        Instant runStart = Instant.ofEpochMilli(ManagementFactory.getRuntimeMXBean().getStartTime());
+        return LocalDateTime.ofInstant(runStart.minus(Duration.ofHours(SWEEP_MIN_AGE_HOURS)), ZoneId.systemDefault());
+    }
+
+    private static void deleteByApi(List<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Response> responses = ConcurrentRequestUtils.sendAll(ids, CleanupRegistry::deleteUser, MAX_CONCURRENCY);
+        int failed = 0;
+        for (int i = 0; i < ids.size(); i++) {
+            int status = responses.get(i).statusCode();
+            // 404 means the test already deleted the user itself
+            boolean deleted = (status >= 200 && status < 300) || status == 404;
+            if (!deleted) {
+                failed++;
+                logger.warn("Could not delete user {}, status {}", ids.get(i), status);
+            }
+        }
+        logger.info("Deleted {} users through the API", ids.size() - failed);
+        if (failed > 0) {
+            logger.warn("Could not delete {} of {} users through the API", failed, ids.size());
+        }
+    }
+
+    private static Response deleteUser(String userId) {
+        return RestAssured.given(apiSpec())
+                .header(CONTENT_TYPE_HEADER, REQUEST_CONTENT_TYPE_HEADER_VALUE)
+                .header(AUTHORIZATION_HEADER, getToken())
+                .delete(DELETE_USER_API, userId);
+    }
+}
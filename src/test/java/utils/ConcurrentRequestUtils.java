@@ -0,0 +1,77 @@
+package utils;
+
+import io.restassured.response.Response;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * Sends a batch of blocking RestAssured calls on virtual threads so that a large data set costs
+ * roughly one server round trip instead of one round trip per row.
+ * <p>
+ * The number of in-flight requests is capped by {@code max_concurrent_requests} from the env file,
+ * or by the {@code maxConcurrency} argument.
+ */
+public class ConcurrentRequestUtils {
+    private static final int DEFAULT_MAX_CONCURRENCY = Integer.parseInt(EnvUtils.Env().get("max_concurrent_requests", "32"));
+
+    public static <T> List<Response> sendAll(List<T> inputs, Function<T, Response> request) {
+        return sendAll(inputs, request, DEFAULT_MAX_CONCURRENCY);
+    }
+
+    /**
+     * @param inputs         one element per request, e.g. the rows of a parameterized data set
+     * @param request        builds and sends the request for one input
+     * @param maxConcurrency maximum number of requests in flight at the same time
+     * @return the responses in the same order as {@code inputs}
+     */
+    public static <T> List<Response> sendAll(List<T> inputs, Function<T, Response> request, int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1 but was " + maxConcurrency);
+        }
+        Semaphore permits = new Semaphore(maxConcurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Response>> futures = new ArrayList<>(inputs.size());
+            for (T input : inputs) {
+                // These calls count towards the latency budget and the request log of the test that sends them
+                futures.add(executor.submit(RequestLogBuffer.withCurrentBuffer(LatencyRecorder.withTestHistogram(() -> {
+                    permits.acquire();
+                    try {
+                        return request.apply(input);
+                    } finally {
+                        permits.release();
+                    }
+                }))));
+            }
+            List<Response> responses = new ArrayList<>(futures.size());
+            for (Future<Response> future : futures) {
+                responses.add(await(future));
+            }
+            return responses;
+        }
+    }
+
+    private static Response await(Future<Response> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for concurrent requests", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
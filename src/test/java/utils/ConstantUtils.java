@@ -27,5 +27,10 @@ public class ConstantUtils {
     public static final String PAGE = "page";
     public static final String SIZE = "size";
     public static final String EMAIL_TEMPLATE = "auto_api_%s@abc.com";
+    // graphql_mock=true points the GraphQL tests at the local stand-in started by MockUtils.startGraphqlServer
+    public static final boolean GRAPHQL_MOCK = Boolean.parseBoolean(EnvUtils.Env().get("graphql_mock", "false"));
+    public static final int GRAPHQL_MOCK_PORT = 7779;
+    public static final String GRAPHQL_HOST = GRAPHQL_MOCK ? "http://localhost" : EnvUtils.Env().get("graphql_host", "https://countries.trevorblades.com");
+    public static final int GRAPHQL_PORT = GRAPHQL_MOCK ? GRAPHQL_MOCK_PORT : Integer.parseInt(EnvUtils.Env().get("graphql_port", "443"));
 
 }
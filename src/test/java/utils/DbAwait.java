@@ -0,0 +1,113 @@
+package utils;
+
+import model.dao.user.UserDao;
+import org.hibernate.query.SelectionQuery;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Waits for rows written through the API to become visible in the (possibly replicated) database,
+ * replacing fixed sleeps with the shortest wait that works.
+ * <p>
+ * Polls back off exponentially from {@code db_await_initial_delay_ms} up to {@code db_await_max_delay_ms},
+ * with jitter so parallel tests do not poll in lockstep, and give up after {@code db_await_timeout_ms}.
+ * Waiting for many users costs one light {@code id}/{@code updated_at} query per poll for all of them,
+ * the full rows are loaded once with {@link DbUtils#getUsersFromDb} when every id is visible.
+ */
+public class DbAwait {
+    private static final long INITIAL_DELAY_MS = Long.parseLong(EnvUtils.Env().get("db_await_initial_delay_ms", "50"));
+    private static final long MAX_DELAY_MS = Long.parseLong(EnvUtils.Env().get("db_await_max_delay_ms", "1000"));
+    private static final long TIMEOUT_MS = Long.parseLong(EnvUtils.Env().get("db_await_timeout_ms", "10000"));
+
+    private DbAwait() {
+    }
+
+    public static UserDao awaitUser(String userId) {
+        return awaitUsers(List.of(userId)).get(userId);
+    }
+
+    public static Map<String, UserDao> awaitUsers(Collection<String> userIds) {
+        return awaitUsers(userIds, null);
+    }
+
+    /**
+     * Waits until every user exists, and when {@code updatedSince} is given until every user has
+     * {@code updated_at >= updatedSince}, which makes the wait work for updates as well as inserts.
+     *
+     * @return the users keyed by id, loaded after all of them became visible
+     */
+    public static Map<String, UserDao> awaitUsers(Collection<String> userIds, LocalDateTime updatedSince) {
+        Set<UUID> pending = new HashSet<>();
+        userIds.forEach(id -> pending.add(UUID.fromString(id)));
+        await(() -> {
+            pending.removeAll(findVisible(pending, updatedSince));
+            return pending;
+        }, Set::isEmpty, String.format("users %s to be visible in the database", pending));
+        return DbUtils.getUsersFromDb(userIds);
+    }
+
+    /**
+     * Calls {@code probe} until its result satisfies {@code done}, backing off between calls.
+     *
+     * @param description what is awaited, used in the failure message
+     * @throws AssertionError when the deadline passes first
+     */
+    public static <T> T await(Supplier<T> probe, Predicate<T> done, String description) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS);
+        long delayMs = INITIAL_DELAY_MS;
+        while (true) {
+            T value = probe.get();
+            if (done.test(value)) {
+                return value;
+            }
+            long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMs <= 0) {
+                throw new AssertionError(String.format("Timed out after %d ms waiting for %s, last value: %s",
+                        TIMEOUT_MS, description, value));
+            }
+            // Equal jitter: half of the delay is fixed so the backoff still grows, the other half is random
+            long sleepMs = delayMs / 2 + ThreadLocalRandom.current().nextLong(delayMs / 2 + 1);
+            sleep(Math.min(sleepMs, remainingMs));
+            delayMs = Math.min(delayMs * 2, MAX_DELAY_MS);
+        }
+    }
+
+    private static List<UUID> findVisible(Collection<UUID> ids, LocalDateTime updatedSince) {
+        List<UUID> candidates = new ArrayList<>(ids);
+        List<UUID> visible = new ArrayList<>();
+        String hql = updatedSince == null
+                ? "select c.id from UserDao c WHERE c.id IN :ids"
+                : "select c.id from UserDao c WHERE c.id IN :ids AND c.updatedAt >= :since";
+        DbUtils.getDbConnection().inStatelessSession(session -> {
+            for (int from = 0; from < candidates.size(); from += DbUtils.IN_CHUNK_SIZE) {
+                SelectionQuery<UUID> query = session.createSelectionQuery(hql, UUID.class)
+                        .setParameter("ids", candidates.subList(from, Math.min(from + DbUtils.IN_CHUNK_SIZE, candidates.size())));
+                if (updatedSince != null) {
+                    query.setParameter("since", updatedSince);
+                }
+                visible.addAll(query.getResultList());
+            }
+        });
+        return visible;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the database", e);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package utils;
+
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+/**
+ * Closes the shared {@link DbUtils} session factory, and its connection pool, once the whole test run is finished.
+ */
+public class DbExtension implements BeforeAllCallback {
+
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        // Resources of the root store are closed after the last test of the run
+        context.getRoot().getStore(ExtensionContext.Namespace.GLOBAL)
+                .getOrComputeIfAbsent(DbShutdown.class, key -> new DbShutdown(), DbShutdown.class);
+    }
+
+    static class DbShutdown implements ExtensionContext.Store.CloseableResource {
+
+        @Override
+        public void close() {
+            DbUtils.shutdown();
+        }
+    }
+}
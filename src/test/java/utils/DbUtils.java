@@ -1,38 +1,115 @@
 package utils;
 
+import model.dao.card.CardDao;
 import model.dao.user.AddressDao;
 import model.dao.user.UserDao;
 import org.hibernate.SessionFactory;
 import org.hibernate.boot.MetadataSources;
 import org.hibernate.boot.registry.StandardServiceRegistry;
 import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.Statistics;
 
+import java.net.URISyntaxException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * JVM wide Hibernate {@link SessionFactory}.
+ * <p>
+ * The factory, and with it the Agroal connection pool configured in {@code hibernate.properties}, is built
+ * once on first use and shared by every test thread. {@link DbExtension} closes it when the run is finished.
+ * <p>
+ * {@code db_second_level_cache=true} turns on the Hibernate second-level and query caches (Ehcache through
+ * JCache, regions configured in {@code ehcache.xml}). Only enable it when the cached rows are not changed
+ * behind Hibernate's back during the run, since writes made by the API do not evict them.
+ */
 public class DbUtils {
-    private static SessionFactory sessionFactory;
+    // Keeps each IN list well below the PostgreSQL limit of 32767 bind parameters per statement
+    static final int IN_CHUNK_SIZE = 1000;
+    private static final boolean SECOND_LEVEL_CACHE = Boolean.parseBoolean(EnvUtils.Env().get("db_second_level_cache", "false"));
+    private static volatile SessionFactory sessionFactory;
 
     public static SessionFactory getDbConnection() {
-        final StandardServiceRegistry registry =
-                new StandardServiceRegistryBuilder()
-                        .build();
-        try {
-            if (sessionFactory == null) {
-                sessionFactory =
-                        new MetadataSources(registry)
-                                .addAnnotatedClass(UserDao.class)
-                                .addAnnotatedClass(AddressDao.class)
-                                .buildMetadata()
-                                .buildSessionFactory();
+        SessionFactory factory = sessionFactory;
+        if (factory == null) {
+            synchronized (DbUtils.class) {
+                // Another thread may have bootstrapped while we were waiting for the lock
+                factory = sessionFactory;
+                if (factory == null) {
+                    factory = buildSessionFactory();
+                    sessionFactory = factory;
+                }
             }
+        }
+        return factory;
+    }
 
+    /**
+     * Closes the session factory and its connection pool, a later {@link #getDbConnection()} bootstraps again.
+     */
+    public static synchronized void shutdown() {
+        if (sessionFactory != null) {
+            sessionFactory.close();
+            sessionFactory = null;
+        }
+    }
+
+    private static SessionFactory buildSessionFactory() {
+        StandardServiceRegistryBuilder builder = new StandardServiceRegistryBuilder();
+        if (SECOND_LEVEL_CACHE) {
+            applySecondLevelCacheSettings(builder);
+        }
+        final StandardServiceRegistry registry = builder.build();
+        try {
+            return new MetadataSources(registry)
+                    .addAnnotatedClass(UserDao.class)
+                    .addAnnotatedClass(AddressDao.class)
+                    .addAnnotatedClass(CardDao.class)
+                    .buildMetadata()
+                    .buildSessionFactory();
         } catch (Exception e) {
             // The registry would be destroyed by the SessionFactory, but we
             // had trouble building the SessionFactory so destroy it manually.
             StandardServiceRegistryBuilder.destroy(registry);
+            throw new IllegalStateException("Cannot bootstrap Hibernate, check hibernate.properties", e);
         }
-        return sessionFactory;
+    }
+
+    private static void applySecondLevelCacheSettings(StandardServiceRegistryBuilder builder) {
+        try {
+            builder.applySetting(AvailableSettings.USE_SECOND_LEVEL_CACHE, true)
+                    .applySetting(AvailableSettings.USE_QUERY_CACHE, true)
+                    .applySetting(AvailableSettings.CACHE_REGION_FACTORY, "jcache")
+                    .applySetting("hibernate.javax.cache.provider", "org.ehcache.jsr107.EhcacheCachingProvider")
+                    .applySetting("hibernate.javax.cache.uri", DbUtils.class.getClassLoader().getResource("ehcache.xml").toURI().toString())
+                    .applySetting("hibernate.javax.cache.missing_cache_strategy", "create")
+                    .applySetting(AvailableSettings.GENERATE_STATISTICS, true);
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return second-level and query cache hit/miss counts, or a note when the cache is off or unused
+     */
+    public static String getCacheStats() {
+        SessionFactory factory = sessionFactory;
+        if (!SECOND_LEVEL_CACHE || factory == null) {
+            return "Second-level cache disabled or database not used";
+        }
+        Statistics statistics = factory.getStatistics();
+        return String.format("second-level cache: hits=%d, misses=%d, puts=%d; query cache: hits=%d, misses=%d, puts=%d",
+                statistics.getSecondLevelCacheHitCount(), statistics.getSecondLevelCacheMissCount(),
+                statistics.getSecondLevelCachePutCount(), statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(), statistics.getQueryCachePutCount());
     }
 
     public static UserDao getUserFromDb(String userId){
@@ -41,8 +118,122 @@ public class DbUtils {
         sessionFactory.inTransaction(session -> {
             userDaoAtomic.set(session.createSelectionQuery("from UserDao c JOIN FETCH c.addresses WHERE c.id = :id", UserDao.class)
                     .setParameter("id", UUID.fromString(userId))
+                    .setCacheable(SECOND_LEVEL_CACHE)
                     .getSingleResult());
         });
         return userDaoAtomic.get();
     }
+
+    /**
+     * Loads many users with their addresses in two queries per {@link #IN_CHUNK_SIZE} ids, in a read-only
+     * stateless session.
+     *
+     * @return the users found, keyed by id in the order of {@code userIds}; unknown ids are left out
+     */
+    public static Map<String, UserDao> getUsersFromDb(Collection<String> userIds) {
+        List<UUID> ids = userIds.stream().distinct().map(UUID::fromString).toList();
+        Map<UUID, UserDao> users = new HashMap<>();
+        getDbConnection().inStatelessSession(session -> {
+            for (int from = 0; from < ids.size(); from += IN_CHUNK_SIZE) {
+                List<UUID> chunk = ids.subList(from, Math.min(from + IN_CHUNK_SIZE, ids.size()));
+                session.createSelectionQuery("from UserDao c WHERE c.id IN :ids", UserDao.class)
+                        .setParameter("ids", chunk)
+                        .setReadOnly(true)
+                        .setCacheable(SECOND_LEVEL_CACHE)
+                        .getResultList()
+                        .forEach(user -> {
+                            user.setAddresses(new ArrayList<>());
+                            users.put(user.getId(), user);
+                        });
+                session.createSelectionQuery("from AddressDao a WHERE a.customerId IN :ids", AddressDao.class)
+                        .setParameter("ids", chunk)
+                        .setReadOnly(true)
+                        .setCacheable(SECOND_LEVEL_CACHE)
+                        .getResultList()
+                        .forEach(address -> {
+                            UserDao user = users.get(address.getCustomerId());
+                            // The user may have been deleted between the two queries
+                            if (user != null) {
+                                user.getAddresses().add(address);
+                            }
+                        });
+            }
+        });
+        Map<String, UserDao> result = new LinkedHashMap<>();
+        for (String id : userIds) {
+            UserDao user = users.get(UUID.fromString(id));
+            if (user != null) {
+                result.putIfAbsent(id, user);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Deletes users with their cards and addresses, with set-based statements per {@link #IN_CHUNK_SIZE} ids.
+     * Cards and addresses reference the user, so they go first.
+     *
+     * @return the number of users deleted
+     */
+    public static int deleteUsers(Collection<String> userIds) {
+        List<UUID> ids = userIds.stream().distinct().map(UUID::fromString).toList();
+        AtomicReference<Integer> deleted = new AtomicReference<>(0);
+        getDbConnection().inTransaction(session -> {
+            for (int from = 0; from < ids.size(); from += IN_CHUNK_SIZE) {
+                List<UUID> chunk = ids.subList(from, Math.min(from + IN_CHUNK_SIZE, ids.size()));
+                session.createMutationQuery("delete from CardDao d WHERE d.customerId IN :ids")
+                        .setParameter("ids", chunk)
+                        .executeUpdate();
+                session.createMutationQuery("delete from AddressDao a WHERE a.customerId IN :ids")
+                        .setParameter("ids", chunk)
+                        .executeUpdate();
+                deleted.set(deleted.get() + session.createMutationQuery("delete from UserDao c WHERE c.id IN :ids")
+                        .setParameter("ids", chunk)
+                        .executeUpdate());
+            }
+        });
+        return deleted.get();
+    }
+
+    /**
+     * Deletes every user whose email starts with {@code prefix} and that was created before
+     * {@code createdBefore}, with their cards and addresses, e.g. the {@code auto_api_} users left behind by
+     * interrupted runs. Users of runs still in progress (other shards, other CI jobs, their user pools) are
+     * newer and kept.
+     *
+     * @return the number of users deleted
+     */
+    public static int deleteUsersByEmailPrefix(String prefix, LocalDateTime createdBefore) {
+        // _ and % are LIKE wildcards, escape them so the prefix matches literally
+        String pattern = prefix.replace("\\", "\\\\").replace("_", "\\_").replace("%", "\\%") + "%";
+        AtomicReference<Integer> deleted = new AtomicReference<>(0);
+        getDbConnection().inTransaction(session -> {
+            for (String dependent : List.of("CardDao", "AddressDao")) {
+                session.createMutationQuery("delete from " + dependent + " d WHERE d.customerId IN "
+                                + "(select c.id from UserDao c WHERE c.email LIKE :pattern ESCAPE '\\' AND c.createdAt < :createdBefore)")
+                        .setParameter("pattern", pattern)
+                        .setParameter("createdBefore", createdBefore)
+                        .executeUpdate();
+            }
+            deleted.set(session.createMutationQuery("delete from UserDao c WHERE c.email LIKE :pattern ESCAPE '\\' "
+                            + "AND c.createdAt < :createdBefore")
+                    .setParameter("pattern", pattern)
+                    .setParameter("createdBefore", createdBefore)
+                    .executeUpdate());
+        });
+        return deleted.get();
+    }
+
+    /**
+     * Inserts users and their addresses in one batched transaction, bypassing the API.
+     */
+    public static void insertUsers(List<UserDao> users) {
+        getDbConnection().inStatelessTransaction(session -> {
+            session.setJdbcBatchSize(IN_CHUNK_SIZE);
+            for (UserDao user : users) {
+                session.insert(user);
+                user.getAddresses().forEach(session::insert);
+            }
+        });
+    }
 }
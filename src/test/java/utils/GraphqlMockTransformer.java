@@ -0,0 +1,185 @@
+package utils;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.extension.ResponseDefinitionTransformerV2;
+import com.github.tomakehurst.wiremock.http.ResponseDefinition;
+import com.github.tomakehurst.wiremock.stubbing.ServeEvent;
+import graphql.ExecutionInput;
+import graphql.GraphQL;
+import graphql.GraphqlErrorBuilder;
+import graphql.schema.DataFetcher;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves {@code schema.graphql} from WireMock with resolvers backed by {@link #FIXTURE_PATH}, so the
+ * GraphQL tests can run without the public countries API.
+ * <p>
+ * Single operations, JSON arrays of operations and Automatic Persisted Queries are supported, matching
+ * what {@link GraphqlUtils} sends. Only stubs that name {@link #NAME} in their {@code transformers} are handled.
+ */
+public class GraphqlMockTransformer implements ResponseDefinitionTransformerV2 {
+    public static final String NAME = "graphql-mock";
+    public static final String FIXTURE_PATH = "mock/graphql/fixtures/countries.json";
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, String> persistedQueries = new ConcurrentHashMap<>();
+    private final GraphQL graphql;
+
+    public GraphqlMockTransformer() {
+        try {
+            List<Map<String, Object>> countries = mapper.readValue(IFileUtils.openResourceStream(FIXTURE_PATH), new TypeReference<>() {
+            });
+            String sdl = IFileUtils.readFileFromResources(GraphqlUtils.SCHEMA_PATH);
+            graphql = GraphQL.newGraphQL(new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(sdl), wiring(countries))).build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean applyGlobally() {
+        return false;
+    }
+
+    @Override
+    public ResponseDefinition transform(ServeEvent serveEvent) {
+        Object result;
+        try {
+            JsonNode body = mapper.readTree(serveEvent.getRequest().getBodyAsString());
+            if (body.isArray()) {
+                List<Object> results = new ArrayList<>(body.size());
+                body.forEach(operation -> results.add(execute(operation)));
+                result = results;
+            } else {
+                result = execute(body);
+            }
+        } catch (IOException e) {
+            result = errorResult("Invalid JSON body: " + e.getMessage(), null);
+        }
+        try {
+            return ResponseDefinitionBuilder.like(serveEvent.getResponseDefinition()).but()
+                    .withBody(mapper.writeValueAsString(result))
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Map<String, Object> execute(JsonNode operation) {
+        String query = operation.path("query").isTextual() ? operation.get("query").asText() : null;
+        String hash = operation.path("extensions").path("persistedQuery").path("sha256Hash").asText(null);
+        if (hash != null) {
+            if (query == null) {
+                query = persistedQueries.get(hash);
+                if (query == null) {
+                    return errorResult("PersistedQueryNotFound", "PERSISTED_QUERY_NOT_FOUND");
+                }
+            } else if (hash.equals(GraphqlUtils.sha256(query))) {
+                persistedQueries.put(hash, query);
+            } else {
+                return errorResult("provided sha does not match query", "BAD_USER_INPUT");
+            }
+        }
+        if (query == null) {
+            return errorResult("Missing query", "BAD_USER_INPUT");
+        }
+        Map<String, Object> variables = operation.hasNonNull("variables")
+                ? mapper.convertValue(operation.get("variables"), new TypeReference<>() {
+                })
+                : Map.of();
+        ExecutionInput input = ExecutionInput.newExecutionInput()
+                .query(query)
+                .operationName(operation.path("operationName").asText(null))
+                .variables(variables)
+                .build();
+        return graphql.execute(input).toSpecification();
+    }
+
+    private static Map<String, Object> errorResult(String message, String code) {
+        GraphqlErrorBuilder<?> error = GraphqlErrorBuilder.newError().message(message);
+        if (code != null) {
+            error.extensions(Map.<String, Object>of("code", code));
+        }
+        return Map.of("errors", List.of(error.build().toSpecification()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RuntimeWiring wiring(List<Map<String, Object>> countries) {
+        Map<String, Map<String, Object>> countriesByCode = new LinkedHashMap<>();
+        Map<String, Map<String, Object>> continentsByCode = new LinkedHashMap<>();
+        Map<String, Map<String, Object>> languagesByCode = new LinkedHashMap<>();
+        for (Map<String, Object> country : countries) {
+            countriesByCode.put((String) country.get("code"), country);
+            Map<String, Object> continent = (Map<String, Object>) country.get("continent");
+            continentsByCode.putIfAbsent((String) continent.get("code"), continent);
+            for (Map<String, Object> language : (List<Map<String, Object>>) country.get("languages")) {
+                languagesByCode.putIfAbsent((String) language.get("code"), language);
+            }
+        }
+        DataFetcher<List<Map<String, Object>>> countriesFetcher = environment -> {
+            Map<String, Map<String, Object>> filter = environment.getArgumentOrDefault("filter", Map.of());
+            return countriesByCode.values().stream()
+                    .filter(country -> matches(filter.get("code"), country.get("code"))
+                            && matches(filter.get("continent"), ((Map<String, Object>) country.get("continent")).get("code"))
+                            && matches(filter.get("currency"), country.get("currency"))
+                            && matches(filter.get("name"), country.get("name")))
+                    .toList();
+        };
+        return RuntimeWiring.newRuntimeWiring()
+                .type("Query", builder -> builder
+                        .dataFetcher("country", environment -> countriesByCode.get(environment.<String>getArgument("code")))
+                        .dataFetcher("countries", countriesFetcher)
+                        .dataFetcher("continent", environment -> continentsByCode.get(environment.<String>getArgument("code")))
+                        .dataFetcher("continents", environment -> filterByCode(continentsByCode, environment.getArgumentOrDefault("filter", Map.of())))
+                        .dataFetcher("language", environment -> languagesByCode.get(environment.<String>getArgument("code")))
+                        .dataFetcher("languages", environment -> filterByCode(languagesByCode, environment.getArgumentOrDefault("filter", Map.of()))))
+                .build();
+    }
+
+    private static List<Map<String, Object>> filterByCode(Map<String, Map<String, Object>> byCode, Map<String, Map<String, Object>> filter) {
+        return byCode.values().stream()
+                .filter(value -> matches(filter.get("code"), value.get("code")))
+                .toList();
+    }
+
+    /**
+     * Applies a {@code StringQueryOperatorInput}, a missing operator matches everything.
+     */
+    @SuppressWarnings("unchecked")
+    private static boolean matches(Map<String, Object> operator, Object value) {
+        if (operator == null) {
+            return true;
+        }
+        String text = value == null ? null : value.toString();
+        if (operator.get("eq") != null && !operator.get("eq").equals(text)) {
+            return false;
+        }
+        if (operator.get("ne") != null && operator.get("ne").equals(text)) {
+            return false;
+        }
+        if (operator.get("in") != null && !((List<String>) operator.get("in")).contains(text)) {
+            return false;
+        }
+        if (operator.get("nin") != null && ((List<String>) operator.get("nin")).contains(text)) {
+            return false;
+        }
+        return operator.get("regex") == null || (text != null && text.matches((String) operator.get("regex")));
+    }
+}
@@ -0,0 +1,351 @@
+package utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import graphql.ParseAndValidate;
+import graphql.language.AstPrinter;
+import graphql.language.AstTransformer;
+import graphql.language.Definition;
+import graphql.language.Document;
+import graphql.language.Field;
+import graphql.language.Node;
+import graphql.language.NodeVisitorStub;
+import graphql.language.OperationDefinition;
+import graphql.language.Selection;
+import graphql.language.SelectionSet;
+import graphql.language.VariableDefinition;
+import graphql.language.VariableReference;
+import graphql.parser.InvalidSyntaxException;
+import graphql.parser.Parser;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import graphql.util.TraversalControl;
+import graphql.util.TraverserContext;
+import graphql.util.TreeTransformerUtil;
+import graphql.validation.ValidationError;
+import io.restassured.RestAssured;
+import io.restassured.response.Response;
+import model.dto.graphql.QueryRequest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static utils.ConstantUtils.CONTENT_TYPE_HEADER;
+import static utils.ConstantUtils.REQUEST_CONTENT_TYPE_HEADER_VALUE;
+import static utils.RequestSpecUtils.graphqlSpec;
+
+/**
+ * Registry of the GraphQL operations under {@link #QUERY_DIR}.
+ * <p>
+ * Every operation is parsed and validated against {@code schema.graphql} once, the first time
+ * the registry is used, so a broken query fails the run up front instead of the test that sends it.
+ * Operations are looked up by file name ({@code country-query}) or operation name ({@code verifyCountry}).
+ * <p>
+ * With {@code graphql_persisted_queries=true} requests are sent as Automatic Persisted Queries: only the
+ * SHA-256 of the query is posted, and the full text follows once if the server does not know the hash yet.
+ * <p>
+ * {@link #executeBatch} runs one operation for many variable sets in a few requests, either as a JSON
+ * array of operations or as aliased copies of the operation merged into one document, and splits the
+ * reply back into one {@code {"data": ..., "errors": ...}} result per variable set.
+ */
+public class GraphqlUtils {
+    public static final String SCHEMA_PATH = "schema.graphql";
+    public static final String QUERY_DIR = "graphql/graphql-query";
+    private static final String QUERY_EXTENSION = ".graphql";
+    private static final List<String> PERSISTED_QUERY_NOT_FOUND = List.of("PersistedQueryNotFound", "PERSISTED_QUERY_NOT_FOUND");
+    private static final List<String> PERSISTED_QUERY_NOT_SUPPORTED = List.of("PersistedQueryNotSupported", "PERSISTED_QUERY_NOT_SUPPORTED");
+    private static final int BATCH_SIZE = Integer.parseInt(EnvUtils.Env().get("graphql_batch_size", "50"));
+    private static final String ALIAS_TEMPLATE = "b%d_%s";
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final boolean PERSISTED_QUERIES = Boolean.parseBoolean(EnvUtils.Env().get("graphql_persisted_queries", "false"));
+    // Flipped on the first server reply saying APQ is unsupported, so later calls skip the extra round trip
+    private static volatile boolean persistedQueriesSupported = PERSISTED_QUERIES;
+
+    public record GraphqlOperation(String name, String operationName, String query, String sha256, Document document) {
+    }
+
+    public enum BatchMode {
+        /**
+         * A JSON array of operations in one POST, the server must have batching enabled.
+         */
+        ARRAY,
+        /**
+         * One document with an aliased copy of the operation per variable set, works against any server.
+         */
+        ALIASES
+    }
+
+    private GraphqlUtils() {
+    }
+
+    private static class Registry {
+        private static final GraphQLSchema SCHEMA = loadSchema();
+        private static final Map<String, GraphqlOperation> OPERATIONS = loadOperations(SCHEMA);
+    }
+
+    /**
+     * Loads the schema and every operation, failing with all validation errors at once.
+     */
+    public static void loadOperations() {
+        Registry.OPERATIONS.size();
+    }
+
+    public static GraphQLSchema getSchema() {
+        return Registry.SCHEMA;
+    }
+
+    public static GraphqlOperation getOperation(String name) {
+        GraphqlOperation operation = Registry.OPERATIONS.get(name);
+        if (operation == null) {
+            throw new IllegalArgumentException(String.format("Unknown GraphQL operation %s, known operations: %s",
+                    name, Registry.OPERATIONS.keySet()));
+        }
+        return operation;
+    }
+
+    /**
+     * Posts a registered operation, as a persisted query hash when enabled.
+     */
+    public static Response execute(String name, Map<String, ?> variables) {
+        GraphqlOperation operation = getOperation(name);
+        if (!persistedQueriesSupported) {
+            return post(new QueryRequest(operation.query(), variables, operation.operationName(), null));
+        }
+        Map<String, ?> extensions = persistedQueryExtension(operation);
+        Response response = post(new QueryRequest(null, variables, operation.operationName(), extensions));
+        List<String> errors = errorCodes(response);
+        if (errors.stream().anyMatch(PERSISTED_QUERY_NOT_SUPPORTED::contains)) {
+            persistedQueriesSupported = false;
+            return post(new QueryRequest(operation.query(), variables, operation.operationName(), null));
+        }
+        if (errors.stream().anyMatch(PERSISTED_QUERY_NOT_FOUND::contains)) {
+            // Sending the text together with the hash registers it for the next call
+            return post(new QueryRequest(operation.query(), variables, operation.operationName(), extensions));
+        }
+        return response;
+    }
+
+    public static List<JsonNode> executeBatch(String name, List<? extends Map<String, ?>> variableSets, BatchMode mode) {
+        return executeBatch(name, variableSets, mode, BATCH_SIZE);
+    }
+
+    /**
+     * Runs a registered operation once per variable set, {@code batchSize} variable sets per request.
+     *
+     * @return one result per variable set, in the same order as {@code variableSets}
+     */
+    public static List<JsonNode> executeBatch(String name, List<? extends Map<String, ?>> variableSets,
+                                              BatchMode mode, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be at least 1 but was " + batchSize);
+        }
+        GraphqlOperation operation = getOperation(name);
+        List<JsonNode> results = new ArrayList<>(variableSets.size());
+        for (int from = 0; from < variableSets.size(); from += batchSize) {
+            List<? extends Map<String, ?>> chunk = variableSets.subList(from, Math.min(from + batchSize, variableSets.size()));
+            results.addAll(mode == BatchMode.ARRAY ? executeArray(operation, chunk) : executeAliased(operation, chunk));
+        }
+        return results;
+    }
+
+    private static List<JsonNode> executeArray(GraphqlOperation operation, List<? extends Map<String, ?>> chunk) {
+        List<QueryRequest> requests = chunk.stream()
+                .map(variables -> new QueryRequest(operation.query(), variables, operation.operationName(), null))
+                .toList();
+        Response response = RestAssured.given(graphqlSpec())
+                .header(CONTENT_TYPE_HEADER, REQUEST_CONTENT_TYPE_HEADER_VALUE)
+                .body(requests)
+                .post();
+        response.then().statusCode(200);
+        JsonNode body = readBody(response);
+        if (!body.isArray() || body.size() != chunk.size()) {
+            throw new IllegalStateException(String.format("Expected an array of %d results but got: %s", chunk.size(), body));
+        }
+        List<JsonNode> results = new ArrayList<>(chunk.size());
+        body.forEach(results::add);
+        return results;
+    }
+
+    private static List<JsonNode> executeAliased(GraphqlOperation operation, List<? extends Map<String, ?>> chunk) {
+        OperationDefinition definition = singleOperation(operation);
+        List<Selection> selections = new ArrayList<>();
+        List<VariableDefinition> variableDefinitions = new ArrayList<>();
+        Map<String, Object> variables = new LinkedHashMap<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            int index = i;
+            for (Selection<?> selection : definition.getSelectionSet().getSelections()) {
+                Field field = (Field) renameVariables(selection, index);
+                selections.add(field.transform(builder -> builder.alias(String.format(ALIAS_TEMPLATE, index, field.getResultKey()))));
+            }
+            for (VariableDefinition variable : definition.getVariableDefinitions()) {
+                variableDefinitions.add(variable.transform(builder -> builder.name(batchName(variable.getName(), index))));
+            }
+            chunk.get(i).forEach((key, value) -> variables.put(batchName(key, index), value));
+        }
+        OperationDefinition merged = definition.transform(builder -> builder
+                .variableDefinitions(variableDefinitions)
+                .selectionSet(SelectionSet.newSelectionSet(selections).build()));
+        List<Definition> definitions = new ArrayList<>(operation.document().getDefinitions());
+        definitions.replaceAll(existing -> existing == definition ? merged : existing);
+        String query = AstPrinter.printAst(operation.document().transform(builder -> builder.definitions(definitions)));
+
+        Response response = post(new QueryRequest(query, variables, operation.operationName(), null));
+        response.then().statusCode(200);
+        return splitAliased(readBody(response), definition, chunk.size());
+    }
+
+    private static List<JsonNode> splitAliased(JsonNode body, OperationDefinition definition, int size) {
+        List<ObjectNode> results = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ObjectNode result = mapper.createObjectNode();
+            ObjectNode data = result.putObject("data");
+            for (Selection<?> selection : definition.getSelectionSet().getSelections()) {
+                String resultKey = ((Field) selection).getResultKey();
+                JsonNode value = body.path("data").get(String.format(ALIAS_TEMPLATE, i, resultKey));
+                data.set(resultKey, value == null ? mapper.nullNode() : value);
+            }
+            results.add(result);
+        }
+        for (JsonNode error : body.path("errors")) {
+            // The first path element is the alias, which tells which variable set the error belongs to
+            String alias = error.path("path").path(0).asText("");
+            int index = alias.startsWith("b") && alias.indexOf('_') > 1
+                    ? Integer.parseInt(alias.substring(1, alias.indexOf('_'))) : -1;
+            if (index >= 0 && index < size) {
+                ObjectNode copy = error.deepCopy();
+                ((ArrayNode) copy.withArray("path")).set(0, mapper.getNodeFactory().textNode(alias.substring(alias.indexOf('_') + 1)));
+                results.get(index).withArray("errors").add(copy);
+            } else {
+                // Not tied to one alias (e.g. a validation error), so every variable set failed
+                results.forEach(result -> result.withArray("errors").add(error));
+            }
+        }
+        return new ArrayList<>(results);
+    }
+
+    private static OperationDefinition singleOperation(GraphqlOperation operation) {
+        List<OperationDefinition> definitions = operation.document().getDefinitionsOfType(OperationDefinition.class);
+        if (definitions.size() != 1) {
+            throw new IllegalArgumentException(String.format("Operation %s must contain exactly one operation to be batched", operation.name()));
+        }
+        for (Selection<?> selection : definitions.get(0).getSelectionSet().getSelections()) {
+            if (!(selection instanceof Field)) {
+                throw new IllegalArgumentException(String.format("Operation %s must only select fields at the top level to be batched", operation.name()));
+            }
+        }
+        return definitions.get(0);
+    }
+
+    private static Node<?> renameVariables(Node<?> node, int index) {
+        return new AstTransformer().transform(node, new NodeVisitorStub() {
+            @Override
+            public TraversalControl visitVariableReference(VariableReference reference, TraverserContext<Node> context) {
+                return TreeTransformerUtil.changeNode(context,
+                        reference.transform(builder -> builder.name(batchName(reference.getName(), index))));
+            }
+        });
+    }
+
+    private static String batchName(String name, int index) {
+        return String.format("%s_%d", name, index);
+    }
+
+    private static JsonNode readBody(Response response) {
+        try {
+            return mapper.readTree(response.asInputStream());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Response post(QueryRequest request) {
+        return RestAssured.given(graphqlSpec())
+                .header(CONTENT_TYPE_HEADER, REQUEST_CONTENT_TYPE_HEADER_VALUE)
+                .body(request)
+                .post();
+    }
+
+    private static Map<String, ?> persistedQueryExtension(GraphqlOperation operation) {
+        return Map.of("persistedQuery", Map.of("version", 1, "sha256Hash", operation.sha256()));
+    }
+
+    private static List<String> errorCodes(Response response) {
+        List<String> codes = new ArrayList<>();
+        List<String> messages = response.jsonPath().getList("errors.message", String.class);
+        List<String> extensionCodes = response.jsonPath().getList("errors.extensions.code", String.class);
+        if (messages != null) {
+            codes.addAll(messages);
+        }
+        if (extensionCodes != null) {
+            codes.addAll(extensionCodes);
+        }
+        return codes;
+    }
+
+    private static GraphQLSchema loadSchema() {
+        try {
+            String sdl = IFileUtils.readFileFromResources(SCHEMA_PATH);
+            return new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(sdl), RuntimeWiring.MOCKED_WIRING);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Map<String, GraphqlOperation> loadOperations(GraphQLSchema schema) {
+        Map<String, GraphqlOperation> operations = new HashMap<>();
+        List<String> problems = new ArrayList<>();
+        try {
+            for (String path : IFileUtils.listResources(QUERY_DIR, QUERY_EXTENSION)) {
+                String query = IFileUtils.readFileFromResources(path);
+                Document document;
+                try {
+                    document = Parser.parse(query);
+                } catch (InvalidSyntaxException e) {
+                    problems.add(String.format("%s: %s", path, e.getMessage()));
+                    continue;
+                }
+                List<ValidationError> errors = ParseAndValidate.validate(schema, document);
+                if (!errors.isEmpty()) {
+                    errors.forEach(error -> problems.add(String.format("%s: %s", path, error.getMessage())));
+                    continue;
+                }
+                String fileName = path.substring(QUERY_DIR.length() + 1, path.length() - QUERY_EXTENSION.length());
+                List<OperationDefinition> definitions = document.getDefinitionsOfType(OperationDefinition.class);
+                String operationName = definitions.size() == 1 ? definitions.get(0).getName() : null;
+                GraphqlOperation operation = new GraphqlOperation(fileName, operationName, query, sha256(query), document);
+                operations.put(fileName, operation);
+                if (operationName != null) {
+                    operations.putIfAbsent(operationName, operation);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!problems.isEmpty()) {
+            throw new IllegalStateException("Invalid GraphQL operations:\n" + String.join("\n", problems));
+        }
+        return Map.copyOf(operations);
+    }
+
+    static String sha256(String query) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(query.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package utils;
+
+import org.junit.jupiter.api.ClassDescriptor;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.ClassOrdererContext;
+import org.junit.platform.engine.support.descriptor.ClassSource;
+
+import java.util.Comparator;
+
+/**
+ * Orders test classes by their {@link TestHistory}, see {@link HistoryOrdering}. Enabled for the whole
+ * suite with {@code junit.jupiter.testclass.order.default}, set from {@code -PtestOrder} in {@code build.gradle}.
+ */
+public class HistoryClassOrderer implements ClassOrderer {
+
+    @Override
+    public void orderClasses(ClassOrdererContext context) {
+        Comparator<String> byHistory = HistoryOrdering.byHistory(true);
+        context.getClassDescriptors().sort(Comparator.comparing(
+                (ClassDescriptor descriptor) -> TestHistory.key(ClassSource.from(descriptor.getTestClass())), byHistory));
+    }
+}
@@ -0,0 +1,34 @@
+package utils;
+
+import org.junit.jupiter.api.MethodDescriptor;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.MethodOrdererContext;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.junit.platform.engine.support.descriptor.MethodSource;
+
+import java.util.Comparator;
+import java.util.Optional;
+
+/**
+ * Orders the methods of a test class by their {@link TestHistory}, see {@link HistoryOrdering}. Enabled for
+ * the whole suite with {@code junit.jupiter.testmethod.order.default}, set from {@code -PtestOrder} in
+ * {@code build.gradle}; a class with its own {@code @TestMethodOrder} keeps it.
+ * <p>
+ * The order only decides which methods start first. It does not ask for {@code SAME_THREAD} execution like
+ * {@link MethodOrderer}'s default, so methods still run concurrently with {@code -Pparallel=true}.
+ */
+public class HistoryMethodOrderer implements MethodOrderer {
+
+    @Override
+    public void orderMethods(MethodOrdererContext context) {
+        Comparator<String> byHistory = HistoryOrdering.byHistory(false);
+        context.getMethodDescriptors().sort(Comparator.comparing(
+                (MethodDescriptor descriptor) -> TestHistory.key(MethodSource.from(context.getTestClass(), descriptor.getMethod())),
+                byHistory));
+    }
+
+    @Override
+    public Optional<ExecutionMode> getDefaultExecutionMode() {
+        return Optional.empty();
+    }
+}
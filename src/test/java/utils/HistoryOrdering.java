@@ -0,0 +1,40 @@
+package utils;
+
+import java.util.Comparator;
+import java.util.Map;
+
+/**
+ * Shared ordering rule of {@link HistoryClassOrderer} and {@link HistoryMethodOrderer}: tests that failed
+ * in their last run first when {@code test.order.failed.first=true}, then the longest first so parallel
+ * runs do not end waiting on one slow straggler, then by name so the order is stable.
+ */
+class HistoryOrdering {
+    static final boolean FAILED_FIRST = Boolean.parseBoolean(System.getProperty("test.order.failed.first", "true"));
+
+    private HistoryOrdering() {
+    }
+
+    /**
+     * @param isClass whether the keys are class keys, tests without history count as the average of their kind
+     */
+    static Comparator<String> byHistory(boolean isClass) {
+        return byHistory(TestHistory.previousRuns(), isClass, FAILED_FIRST);
+    }
+
+    static Comparator<String> byHistory(Map<String, TestHistory.Entry> history, boolean isClass, boolean failedFirstEnabled) {
+        long fallbackMs = (long) history.entrySet().stream()
+                .filter(entry -> TestHistory.isClassKey(entry.getKey()) == isClass)
+                .mapToLong(entry -> entry.getValue().durationMs())
+                .average()
+                .orElse(0);
+        Comparator<String> failedFirst = Comparator.comparing(key -> {
+            TestHistory.Entry entry = history.get(key);
+            return !(failedFirstEnabled && entry != null && entry.failedLastRun());
+        });
+        Comparator<String> longestFirst = Comparator.comparingLong((String key) -> {
+            TestHistory.Entry entry = history.get(key);
+            return entry == null ? fallbackMs : entry.durationMs();
+        }).reversed();
+        return failedFirst.thenComparing(longestFirst).thenComparing(Comparator.naturalOrder());
+    }
+}
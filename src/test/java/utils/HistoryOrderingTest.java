@@ -0,0 +1,90 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.testkit.engine.EngineTestKit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectClass;
+
+class HistoryOrderingTest {
+    private static final String FIXTURE_PARAMETER = "history.ordering.fixture";
+
+    @Test
+    void ordersFailedFirstThenLongestThenByName() {
+        Map<String, TestHistory.Entry> history = Map.of(
+                "A#fast()", new TestHistory.Entry(100, 3, false, 0),
+                "A#slow()", new TestHistory.Entry(5000, 3, false, 0),
+                "A#failed()", new TestHistory.Entry(10, 3, true, 1),
+                "A#sameAsFastB()", new TestHistory.Entry(100, 3, false, 0));
+        List<String> keys = new ArrayList<>(List.of("A#fast()", "A#sameAsFastB()", "A#new()", "A#slow()", "A#failed()"));
+
+        keys.sort(HistoryOrdering.byHistory(history, false, true));
+
+        // A#new() has no history and counts as the average, 1302 ms
+        assertThat(keys, contains("A#failed()", "A#slow()", "A#new()", "A#fast()", "A#sameAsFastB()"));
+    }
+
+    @Test
+    void ignoresFailuresWhenFailedFirstIsOff() {
+        Map<String, TestHistory.Entry> history = Map.of(
+                "A#slow()", new TestHistory.Entry(5000, 3, false, 0),
+                "A#failed()", new TestHistory.Entry(10, 3, true, 1));
+        List<String> keys = new ArrayList<>(List.of("A#failed()", "A#slow()"));
+
+        keys.sort(HistoryOrdering.byHistory(history, false, false));
+
+        assertThat(keys, contains("A#slow()", "A#failed()"));
+    }
+
+    @Test
+    void methodOrdererKeepsMethodsConcurrent() {
+        assertThat(new HistoryMethodOrderer().getDefaultExecutionMode().isPresent(), is(false));
+
+        // Both methods wait for each other, they only pass when they run at the same time
+        EngineTestKit.engine("junit-jupiter")
+                .selectors(selectClass(ConcurrentFixture.class))
+                .configurationParameter(FIXTURE_PARAMETER, "true")
+                .configurationParameter("junit.jupiter.testmethod.order.default", HistoryMethodOrderer.class.getName())
+                .configurationParameter("junit.jupiter.execution.parallel.enabled", "true")
+                .configurationParameter("junit.jupiter.execution.parallel.mode.default", "concurrent")
+                .configurationParameter("junit.jupiter.execution.parallel.config.strategy", "fixed")
+                .configurationParameter("junit.jupiter.execution.parallel.config.fixed.parallelism", "4")
+                .execute()
+                .testEvents()
+                .assertStatistics(stats -> stats.started(2).succeeded(2).failed(0));
+    }
+
+    /**
+     * Only runs inside {@link #methodOrdererKeepsMethodsConcurrent()}, the suite itself may run sequentially.
+     */
+    @EnabledIf("launchedByTestKit")
+    static class ConcurrentFixture {
+        private static final CountDownLatch bothStarted = new CountDownLatch(2);
+
+        static boolean launchedByTestKit(ExtensionContext context) {
+            return context.getConfigurationParameter(FIXTURE_PARAMETER).isPresent();
+        }
+
+        @Test
+        void first() throws InterruptedException {
+            bothStarted.countDown();
+            assertThat(bothStarted.await(10, TimeUnit.SECONDS), is(true));
+        }
+
+        @Test
+        void second() throws InterruptedException {
+            bothStarted.countDown();
+            assertThat(bothStarted.await(10, TimeUnit.SECONDS), is(true));
+        }
+    }
+}
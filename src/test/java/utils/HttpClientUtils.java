@@ -0,0 +1,84 @@
+package utils;
+
+import io.restassured.config.HttpClientConfig;
+import io.restassured.config.RestAssuredConfig;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared, pooled Apache HttpClient behind every RestAssured call made through {@link RequestSpecUtils}.
+ * <p>
+ * Connections are kept alive and reused across tests, so short calls do not pay the TCP/TLS set-up
+ * on every request. Pool sizing, keep-alive and idle eviction are read from the env files:
+ * {@code http_pool_max_total}, {@code http_pool_max_per_route}, {@code http_keep_alive_ms} and
+ * {@code http_idle_evict_ms}.
+ * <p>
+ * RestAssured's {@link HttpClientConfig.HttpClientFactory} has to return an {@code AbstractHttpClient}, and
+ * RestAssured configures the client through its {@code HttpParams}. A {@code CloseableHttpClient} from
+ * {@code HttpClientBuilder} with a {@code PoolingHttpClientConnectionManager} is not an
+ * {@code AbstractHttpClient}, so RestAssured cannot use it. The legacy pooling classes are therefore kept in
+ * this class only, which is why its deprecation warnings are suppressed.
+ */
+@SuppressWarnings("deprecation")
+public class HttpClientUtils {
+    private static final int MAX_TOTAL = Integer.parseInt(EnvUtils.Env().get("http_pool_max_total", "200"));
+    private static final int MAX_PER_ROUTE = Integer.parseInt(EnvUtils.Env().get("http_pool_max_per_route", "50"));
+    private static final long KEEP_ALIVE_MS = Long.parseLong(EnvUtils.Env().get("http_keep_alive_ms", "30000"));
+    private static final long IDLE_EVICT_MS = Long.parseLong(EnvUtils.Env().get("http_idle_evict_ms", "60000"));
+    private static final PoolingClientConnectionManager connectionManager = createConnectionManager();
+    private static final DefaultHttpClient httpClient = createHttpClient();
+    // RestAssured shuts the connection manager down after each call unless the client instance is reused
+    private static final RestAssuredConfig pooledConfig = RestAssuredConfig.config()
+            .httpClient(HttpClientConfig.httpClientConfig()
+                    .reuseHttpClientInstance()
+                    .httpClientFactory(() -> httpClient));
+
+    static {
+        ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "http-idle-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(IDLE_EVICT_MS / 2, 1000);
+        evictor.scheduleAtFixedRate(HttpClientUtils::evictIdleConnections, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public static RestAssuredConfig pooledConfig() {
+        return pooledConfig;
+    }
+
+    /**
+     * @return leased, pending and available connections over all routes, to check that connections are reused.
+     */
+    public static PoolStats getPoolStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    private static PoolingClientConnectionManager createConnectionManager() {
+        PoolingClientConnectionManager manager = new PoolingClientConnectionManager();
+        manager.setMaxTotal(MAX_TOTAL);
+        manager.setDefaultMaxPerRoute(MAX_PER_ROUTE);
+        return manager;
+    }
+
+    private static DefaultHttpClient createHttpClient() {
+        DefaultHttpClient client = new DefaultHttpClient(connectionManager);
+        client.setKeepAliveStrategy((response, context) -> {
+            // Honour a shorter Keep-Alive header from the server, otherwise use our own limit
+            long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return serverKeepAlive > 0 ? Math.min(serverKeepAlive, KEEP_ALIVE_MS) : KEEP_ALIVE_MS;
+        });
+        return client;
+    }
+
+    private static void evictIdleConnections() {
+        connectionManager.closeExpiredConnections();
+        connectionManager.closeIdleConnections(IDLE_EVICT_MS, TimeUnit.MILLISECONDS);
+    }
+}
@@ -1,14 +1,252 @@
 package utils;
 
-import org.apache.commons.io.FileUtils;
-
-import java.io.File;
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
+/**
+ * Classpath resource access for test fixtures (GraphQL queries, expected JSON files, schemas).
+ * <p>
+ * Resources are read as streams, so they also work when packaged in a jar, and kept in a bounded LRU cache
+ * so parameterized invocations do not reread the same file. Files larger than {@code resource_cache_max_entry_bytes}
+ * are not cached; when they are on disk they are memory-mapped instead of copied onto the heap.
+ * <p>
+ * Cached bytes are never handed out: {@link #readBytesFromResources(String)} returns a copy, streams and
+ * {@link #mapResource(String)} are read-only. Decoded text kept by the cache counts against
+ * {@code resource_cache_max_bytes} too, at two bytes per char.
+ */
 public class IFileUtils {
+    private static final long MAX_CACHE_BYTES = Long.parseLong(EnvUtils.Env().get("resource_cache_max_bytes", "67108864"));
+    private static final long MAX_ENTRY_BYTES = Long.parseLong(EnvUtils.Env().get("resource_cache_max_entry_bytes", "4194304"));
+    private static final Map<String, CachedResource> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private static final Map<String, MappedByteBuffer> mappedFiles = new ConcurrentHashMap<>();
+    private static long cachedBytes;
+
+    private static class CachedResource {
+        private final byte[] bytes;
+        private volatile String text;
+        // Guarded by IFileUtils.class, like the cache itself
+        private long weight;
+        private boolean cached;
+
+        CachedResource(byte[] bytes) {
+            this.bytes = bytes;
+            this.weight = bytes.length;
+        }
+
+        String text() {
+            String value = text;
+            if (value == null) {
+                value = cacheText(this, new String(bytes, StandardCharsets.UTF_8));
+            }
+            return value;
+        }
+    }
+
     public static String readFileFromResources(String path) throws IOException {
-        ClassLoader classLoader = IFileUtils.class.getClassLoader();
-        File file = new File(classLoader.getResource(path).getFile());
-        return FileUtils.readFileToString(file, "UTF-8");
+        CachedResource resource = getCached(path);
+        if (resource != null) {
+            return resource.text();
+        }
+        return new String(readBytesFromResources(path), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return a copy of the resource, callers may change it
+     */
+    public static byte[] readBytesFromResources(String path) throws IOException {
+        CachedResource resource = getCached(path);
+        if (resource != null) {
+            return resource.bytes.clone();
+        }
+        byte[] bytes;
+        try (InputStream stream = openClasspathStream(path)) {
+            bytes = stream.readAllBytes();
+        }
+        if (bytes.length <= MAX_ENTRY_BYTES) {
+            putCached(path, new CachedResource(bytes.clone()));
+        }
+        return bytes;
+    }
+
+    /**
+     * Opens a resource for streaming: cached resources are served from memory, large files on disk are
+     * memory-mapped and everything else is streamed from the classpath.
+     */
+    public static InputStream openResourceStream(String path) throws IOException {
+        CachedResource resource = getCached(path);
+        if (resource != null) {
+            return new ByteArrayInputStream(resource.bytes);
+        }
+        Path file = toFile(resolve(path));
+        if (file != null && file.toFile().length() > MAX_ENTRY_BYTES) {
+            return new ByteBufferInputStream(mapResource(path));
+        }
+        if (file != null) {
+            return new ByteArrayInputStream(readBytesFromResources(path));
+        }
+        return openClasspathStream(path);
+    }
+
+    /**
+     * @return a read-only view of the resource, memory-mapped when it is a file on disk.
+     */
+    public static ByteBuffer mapResource(String path) throws IOException {
+        Path file = toFile(resolve(path));
+        if (file == null) {
+            CachedResource resource = getCached(path);
+            byte[] bytes = resource != null ? resource.bytes : readBytesFromResources(path);
+            return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+        }
+        MappedByteBuffer mapped = mappedFiles.get(path);
+        if (mapped == null) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            mappedFiles.putIfAbsent(path, mapped);
+        }
+        // Each caller gets its own position and limit
+        return mapped.asReadOnlyBuffer();
+    }
+
+    /**
+     * Lists the files directly under a classpath directory, whether it is on disk or in a jar.
+     *
+     * @return classpath paths such as {@code json-schema/login-schema.json}, sorted by name
+     */
+    public static List<String> listResources(String directory, String extension) throws IOException {
+        URI uri;
+        try {
+            uri = resolve(directory).toURI();
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+        if ("jar".equals(uri.getScheme())) {
+            try {
+                FileSystems.newFileSystem(uri, Map.of());
+            } catch (FileSystemAlreadyExistsException e) {
+                // Opened by an earlier call
+            }
+        }
+        try (Stream<Path> files = Files.list(Path.of(uri))) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(extension))
+                    .sorted()
+                    .map(name -> directory + "/" + name)
+                    .toList();
+        }
+    }
+
+    private static synchronized CachedResource getCached(String path) {
+        return cache.get(path);
+    }
+
+    private static synchronized void putCached(String path, CachedResource resource) {
+        CachedResource previous = cache.put(path, resource);
+        if (previous != null) {
+            previous.cached = false;
+            cachedBytes -= previous.weight;
+        }
+        resource.cached = true;
+        cachedBytes += resource.weight;
+        evictOverLimit();
+    }
+
+    private static synchronized String cacheText(CachedResource resource, String value) {
+        if (resource.text != null) {
+            // Decoded by another thread first, count it once
+            return resource.text;
+        }
+        resource.text = value;
+        long textBytes = 2L * value.length();
+        resource.weight += textBytes;
+        if (resource.cached) {
+            cachedBytes += textBytes;
+            evictOverLimit();
+        }
+        return value;
+    }
+
+    private static void evictOverLimit() {
+        Iterator<CachedResource> eldest = cache.values().iterator();
+        while (cachedBytes > MAX_CACHE_BYTES && eldest.hasNext()) {
+            CachedResource evicted = eldest.next();
+            evicted.cached = false;
+            cachedBytes -= evicted.weight;
+            eldest.remove();
+        }
+    }
+
+    private static URL resolve(String path) throws FileNotFoundException {
+        URL url = IFileUtils.class.getClassLoader().getResource(path);
+        if (url == null) {
+            throw new FileNotFoundException(String.format("Resource %s not found on the classpath", path));
+        }
+        return url;
+    }
+
+    private static Path toFile(URL url) {
+        if (!"file".equals(url.getProtocol())) {
+            return null;
+        }
+        try {
+            return Path.of(url.toURI());
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+    private static InputStream openClasspathStream(String path) throws IOException {
+        return resolve(path).openStream();
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
     }
 }
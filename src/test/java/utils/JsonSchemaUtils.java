@@ -0,0 +1,102 @@
+package utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.jackson.JacksonUtils;
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.jsonschema.main.JsonSchema;
+import com.github.fge.jsonschema.main.JsonSchemaFactory;
+import io.restassured.response.Response;
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.hamcrest.TypeSafeDiagnosingMatcher;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Loads and compiles each JSON schema under {@code json-schema/} once per JVM.
+ * <p>
+ * {@code matchesJsonSchemaInClasspath} reloads and recompiles the schema on every assertion; the compiled
+ * {@link JsonSchema} is immutable and thread safe, so it is cached here and shared by all tests. Responses are
+ * validated straight from their body bytes without building an intermediate String.
+ * With {@code json_schema_preload=true} in the env file all schemas are compiled when the first test class starts.
+ */
+public class JsonSchemaUtils {
+    public static final String SCHEMA_DIR = "json-schema";
+    private static final JsonSchemaFactory factory = JsonSchemaFactory.byDefault();
+    private static final Map<String, JsonSchema> schemas = new ConcurrentHashMap<>();
+    private static volatile boolean preloaded;
+
+    /**
+     * @param path classpath location, e.g. {@code json-schema/login-schema.json}
+     */
+    public static JsonSchema getSchema(String path) {
+        return schemas.computeIfAbsent(path, JsonSchemaUtils::compile);
+    }
+
+    public static ProcessingReport validate(String schemaPath, InputStream json) {
+        try {
+            JsonNode instance = JacksonUtils.getReader().readTree(json);
+            // Deep check, same as RestAssured's schema validator
+            return getSchema(schemaPath).validate(instance, true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ProcessingException e) {
+            throw new IllegalStateException(String.format("Cannot validate against schema %s", schemaPath), e);
+        }
+    }
+
+    /**
+     * Hamcrest counterpart of {@code matchesJsonSchemaInClasspath} for a whole {@link Response}:
+     * {@code assertThat(response, matchesCompiledJsonSchema("json-schema/login-schema.json"))}.
+     */
+    public static Matcher<Response> matchesCompiledJsonSchema(String schemaPath) {
+        return new TypeSafeDiagnosingMatcher<>() {
+            @Override
+            protected boolean matchesSafely(Response response, Description mismatchDescription) {
+                ProcessingReport report = validate(schemaPath, response.asInputStream());
+                if (!report.isSuccess()) {
+                    mismatchDescription.appendText(report.toString());
+                }
+                return report.isSuccess();
+            }
+
+            @Override
+            public void describeTo(Description description) {
+                description.appendText("a response body matching JSON schema ").appendValue(schemaPath);
+            }
+        };
+    }
+
+    public static void preloadIfEnabled() {
+        if (!preloaded && Boolean.parseBoolean(EnvUtils.Env().get("json_schema_preload", "false"))) {
+            preloadAll();
+            preloaded = true;
+        }
+    }
+
+    /**
+     * Compiles every {@code *.json} file under {@link #SCHEMA_DIR}.
+     */
+    public static void preloadAll() {
+        try {
+            IFileUtils.listResources(SCHEMA_DIR, ".json").forEach(JsonSchemaUtils::getSchema);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static JsonSchema compile(String path) {
+        try (InputStream stream = IFileUtils.openResourceStream(path)) {
+            return factory.getJsonSchema(JacksonUtils.getReader().readTree(stream));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ProcessingException e) {
+            throw new IllegalStateException(String.format("Invalid JSON schema %s", path), e);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package utils;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Asserts a latency percentile over all calls made by a test method, across every invocation of a
+ * {@code @ParameterizedTest}. The budget comes from {@code latency_budget_<value>_p<percentile>_ms} in the
+ * env file, e.g. {@code latency_budget_get_country_p95_ms=150}; without it nothing is asserted.
+ * Needs the {@link LatencyBudgetExtension} on the test class.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface LatencyBudget {
+    String value();
+
+    double percentile() default 95;
+}
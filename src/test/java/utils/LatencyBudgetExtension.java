@@ -0,0 +1,68 @@
+package utils;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects the latencies of the methods annotated with {@link LatencyBudget} and fails the test class
+ * when a percentile exceeds its budget. The check runs after all invocations of the method are done.
+ */
+public class LatencyBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback, AfterAllCallback {
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(LatencyBudgetExtension.class);
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        if (context.getRequiredTestMethod().isAnnotationPresent(LatencyBudget.class)) {
+            Histogram histogram = histograms(context)
+                    .computeIfAbsent(context.getRequiredTestMethod(), method -> new ConcurrentHistogram(3));
+            LatencyRecorder.bindTestHistogram(histogram);
+        }
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        LatencyRecorder.unbindTestHistogram();
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context) {
+        List<String> violations = new ArrayList<>();
+        histograms(context).forEach((method, histogram) -> {
+            LatencyBudget budget = method.getAnnotation(LatencyBudget.class);
+            Long budgetMillis = LatencyBudgets.percentileBudgetMillis(budget.value(), budget.percentile());
+            if (budgetMillis == null || histogram.getTotalCount() == 0) {
+                return;
+            }
+            double actualMillis = histogram.getValueAtPercentile(budget.percentile()) / 1000.0;
+            if (actualMillis > budgetMillis) {
+                violations.add(String.format("%s: p%s of %d calls is %.1f ms, budget is %d ms",
+                        method.getName(), LatencyBudgets.formatPercentile(budget.percentile()),
+                        histogram.getTotalCount(), actualMillis, budgetMillis));
+            }
+        });
+        if (!violations.isEmpty()) {
+            throw new AssertionError("Latency budget exceeded\n" + String.join("\n", violations));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Method, Histogram> histograms(ExtensionContext context) {
+        ExtensionContext classContext = context;
+        // Parameterized invocations sit below a test template container, the budget is checked per class
+        while (classContext.getTestMethod().isPresent() && classContext.getParent().isPresent()) {
+            classContext = classContext.getParent().get();
+        }
+        return classContext.getStore(NAMESPACE)
+                .getOrComputeIfAbsent(Map.class, key -> new ConcurrentHashMap<Method, Histogram>(), Map.class);
+    }
+}
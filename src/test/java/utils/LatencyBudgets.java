@@ -0,0 +1,39 @@
+package utils;
+
+import io.restassured.builder.ResponseSpecBuilder;
+import io.restassured.specification.ResponseSpecification;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+/**
+ * Latency budgets configured per environment in the env files.
+ * <p>
+ * Single call: {@code response.then().spec(withinLatencyBudget("create_user"))} checks the response time
+ * against {@code latency_budget_create_user_ms}. Aggregates over a whole test use {@link LatencyBudget}.
+ */
+public class LatencyBudgets {
+
+    public static ResponseSpecification withinLatencyBudget(String key) {
+        ResponseSpecBuilder builder = new ResponseSpecBuilder();
+        Long budgetMillis = budgetMillis(String.format("latency_budget_%s_ms", key));
+        if (budgetMillis != null) {
+            builder.expectResponseTime(lessThanOrEqualTo(budgetMillis), TimeUnit.MILLISECONDS);
+        }
+        return builder.build();
+    }
+
+    static Long percentileBudgetMillis(String key, double percentile) {
+        return budgetMillis(String.format("latency_budget_%s_p%s_ms", key, formatPercentile(percentile)));
+    }
+
+    static String formatPercentile(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+    }
+
+    private static Long budgetMillis(String envKey) {
+        String value = EnvUtils.Env().get(envKey);
+        return value == null || value.isBlank() ? null : Long.parseLong(value.trim());
+    }
+}
@@ -0,0 +1,23 @@
+package utils;
+
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+/**
+ * Times every call and records it in the {@link LatencyRecorder} under its path template.
+ */
+public class LatencyFilter implements Filter {
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        long start = System.nanoTime();
+        Response response = ctx.next(requestSpec, responseSpec);
+        LatencyRecorder.record(requestSpec.getMethod(), requestSpec.getUserDefinedPath(), response.statusCode(),
+                System.nanoTime() - start);
+        return response;
+    }
+}
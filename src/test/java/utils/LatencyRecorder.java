@@ -0,0 +1,166 @@
+package utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of every RestAssured call of the run, kept in one HdrHistogram per endpoint, method and status.
+ * <p>
+ * Endpoints are tagged with the name of their path template constant in {@link ConstantUtils}
+ * (e.g. {@code GET_COUNTRY_API}) so that {@code /api/v1/countries/VN} and {@code /api/v1/countries/US}
+ * end up in the same histogram.
+ */
+public class LatencyRecorder {
+    public static final Path REPORT_PATH = Path.of("build", "reports", "latency", "latency-report.json");
+    private static final Map<String, List<String>> endpointNames = endpointNamesByPath();
+    private static final Map<EndpointKey, Histogram> histograms = new ConcurrentHashMap<>();
+    // Extra histogram of the running test. Not inherited: pool and virtual threads started during a test can
+    // outlive it or run work of other tests, hand-offs go through withTestHistogram instead
+    private static final ThreadLocal<Histogram> testHistogram = new ThreadLocal<>();
+
+    public record EndpointKey(String endpoint, String method, int status) {
+    }
+
+    public static void record(String method, String pathTemplate, int status, long latencyNanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(latencyNanos);
+        EndpointKey key = new EndpointKey(endpointName(method, pathTemplate), method, status);
+        histograms.computeIfAbsent(key, k -> new ConcurrentHistogram(3)).recordValue(micros);
+        Histogram current = testHistogram.get();
+        if (current != null) {
+            current.recordValue(micros);
+        }
+    }
+
+    /**
+     * Also records the calls made by the current thread into {@code histogram}, in microseconds, until
+     * {@link #unbindTestHistogram()}. Work handed to other threads is only included when it is wrapped with
+     * {@link #withTestHistogram(Callable)}.
+     */
+    public static void bindTestHistogram(Histogram histogram) {
+        testHistogram.set(histogram);
+    }
+
+    public static void unbindTestHistogram() {
+        testHistogram.remove();
+    }
+
+    /**
+     * @return {@code task} bound to the test histogram of the calling thread, if any, while it runs on
+     * another thread
+     */
+    public static <V> Callable<V> withTestHistogram(Callable<V> task) {
+        Histogram histogram = testHistogram.get();
+        if (histogram == null) {
+            return task;
+        }
+        return () -> {
+            Histogram previous = testHistogram.get();
+            testHistogram.set(histogram);
+            try {
+                return task.call();
+            } finally {
+                if (previous == null) {
+                    testHistogram.remove();
+                } else {
+                    testHistogram.set(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * @return p50/p90/p99/p999/max in milliseconds per endpoint, method and status, sorted by endpoint.
+     */
+    public static List<Map<String, Object>> percentiles() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        histograms.entrySet().stream()
+                .sorted(Comparator.comparing((Map.Entry<EndpointKey, Histogram> entry) -> entry.getKey().endpoint())
+                        .thenComparing(entry -> entry.getKey().method())
+                        .thenComparingInt(entry -> entry.getKey().status()))
+                .forEach(entry -> {
+                    Histogram histogram = entry.getValue().copy();
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("endpoint", entry.getKey().endpoint());
+                    row.put("method", entry.getKey().method());
+                    row.put("status", entry.getKey().status());
+                    row.put("count", histogram.getTotalCount());
+                    row.put("p50", toMillis(histogram.getValueAtPercentile(50)));
+                    row.put("p90", toMillis(histogram.getValueAtPercentile(90)));
+                    row.put("p99", toMillis(histogram.getValueAtPercentile(99)));
+                    row.put("p999", toMillis(histogram.getValueAtPercentile(99.9)));
+                    row.put("max", toMillis(histogram.getMaxValue()));
+                    rows.add(row);
+                });
+        return rows;
+    }
+
+    public static byte[] reportJson() {
+        try {
+            return new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsBytes(percentiles());
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot serialize latency report", e);
+        }
+    }
+
+    /**
+     * Writes the percentile report to {@link #REPORT_PATH}.
+     */
+    public static byte[] writeReport() throws IOException {
+        byte[] json = reportJson();
+        Files.createDirectories(REPORT_PATH.getParent());
+        Files.write(REPORT_PATH, json);
+        return json;
+    }
+
+    public static boolean isEmpty() {
+        return histograms.isEmpty();
+    }
+
+    private static double toMillis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static String endpointName(String method, String pathTemplate) {
+        String path = pathTemplate == null || pathTemplate.isEmpty() ? "/" : pathTemplate;
+        List<String> names = endpointNames.get(path);
+        if (names == null) {
+            return path;
+        }
+        // GET_USER_API and DELETE_USER_API share a path, prefer the constant named after the method
+        return names.stream()
+                .filter(name -> name.startsWith(method + "_"))
+                .findFirst()
+                .orElse(names.get(0));
+    }
+
+    private static Map<String, List<String>> endpointNamesByPath() {
+        Map<String, List<String>> names = new HashMap<>();
+        for (Field field : ConstantUtils.class.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && field.getType() == String.class && field.getName().endsWith("_API")) {
+                try {
+                    names.computeIfAbsent((String) field.get(null), path -> new ArrayList<>()).add(field.getName());
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,63 @@
+package utils;
+
+import io.qameta.allure.util.PropertiesUtils;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Writes the per-endpoint latency percentiles once, when the whole test run is finished, as a JSON file
+ * ({@link LatencyRecorder#REPORT_PATH}) and as environment data of the Allure report.
+ * <p>
+ * The Allure entries are added to {@code environment.properties} in the results directory, one line per
+ * endpoint, method and status, prefixed with the shard index when the run is sharded. They are not a test
+ * result, so they do not change the test count and stay apart when shards are merged. Allure only shows
+ * attachments of a test or of a fixture around tests, and this report is written after the last of them
+ * has finished, so the run-wide table is environment data rather than an attachment.
+ */
+public class LatencyReportExtension implements BeforeAllCallback {
+    private static final String ENVIRONMENT_FILE = "environment.properties";
+
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        // Resources of the root store are closed after the last test of the run
+        context.getRoot().getStore(ExtensionContext.Namespace.GLOBAL)
+                .getOrComputeIfAbsent(LatencyReport.class, key -> new LatencyReport(), LatencyReport.class);
+    }
+
+    static class LatencyReport implements ExtensionContext.Store.CloseableResource {
+
+        @Override
+        public void close() throws IOException {
+            if (LatencyRecorder.isEmpty()) {
+                return;
+            }
+            LatencyRecorder.writeReport();
+            Path resultsDir = Path.of(PropertiesUtils.loadAllureProperties().getProperty("allure.results.directory", "allure-results"));
+            Path environmentFile = resultsDir.resolve(ENVIRONMENT_FILE);
+            Properties environment = new Properties();
+            if (Files.exists(environmentFile)) {
+                try (Reader reader = Files.newBufferedReader(environmentFile)) {
+                    environment.load(reader);
+                }
+            }
+            String prefix = ShardPlan.isEnabled() ? String.format("latency.shard-%d.", ShardPlan.SHARD_INDEX) : "latency.";
+            for (Map<String, Object> row : LatencyRecorder.percentiles()) {
+                environment.setProperty(String.format("%s%s.%s.%s", prefix, row.get("endpoint"), row.get("method"), row.get("status")),
+                        String.format("n=%s p50=%sms p90=%sms p99=%sms p999=%sms max=%sms", row.get("count"),
+                                row.get("p50"), row.get("p90"), row.get("p99"), row.get("p999"), row.get("max")));
+            }
+            Files.createDirectories(resultsDir);
+            try (Writer writer = Files.newBufferedWriter(environmentFile)) {
+                environment.store(writer, null);
+            }
+        }
+    }
+}
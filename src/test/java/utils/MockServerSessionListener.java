@@ -0,0 +1,22 @@
+package utils;
+
+import org.junit.platform.launcher.LauncherSession;
+import org.junit.platform.launcher.LauncherSessionListener;
+
+/**
+ * Starts the mock servers once when the test JVM starts, instead of in the first test class that needs them,
+ * and stops them when it ends. Registered through
+ * {@code META-INF/services/org.junit.platform.launcher.LauncherSessionListener}, active with {@code mock_preload=true}.
+ */
+public class MockServerSessionListener implements LauncherSessionListener {
+
+    @Override
+    public void launcherSessionOpened(LauncherSession session) {
+        MockUtils.preloadIfEnabled();
+    }
+
+    @Override
+    public void launcherSessionClosed(LauncherSession session) {
+        MockUtils.stopAllMockServer();
+    }
+}
@@ -2,20 +2,52 @@ package utils;
 
 import com.github.tomakehurst.wiremock.WireMockServer;
 import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
 import lombok.Getter;
 
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
 
+/**
+ * WireMock servers standing in for the dependencies of the API under test, and for the public GraphQL API.
+ * <p>
+ * Tuned from the env profile so the mocks keep up when the card flow runs under load: Jetty
+ * {@code mock_container_threads}, asynchronous responses ({@code mock_async_responses},
+ * {@code mock_async_response_threads}), a request journal capped at {@code mock_max_request_journal_entries}
+ * (0 disables it, so memory stays flat however many requests are served) and console notifications only with
+ * {@code mock_verbose=true}. With {@code mock_preload=true} every server is started with its mappings when
+ * the JVM starts, see {@link MockServerSessionListener}.
+ */
 @Getter
 public class MockUtils {
+    private static final int CONTAINER_THREADS = Integer.parseInt(EnvUtils.Env().get("mock_container_threads", "200"));
+    private static final boolean ASYNC_RESPONSES = Boolean.parseBoolean(EnvUtils.Env().get("mock_async_responses", "true"));
+    private static final int ASYNC_RESPONSE_THREADS = Integer.parseInt(EnvUtils.Env().get("mock_async_response_threads", "16"));
+    private static final int MAX_REQUEST_JOURNAL_ENTRIES = Integer.parseInt(EnvUtils.Env().get("mock_max_request_journal_entries", "0"));
+    private static final boolean VERBOSE = Boolean.parseBoolean(EnvUtils.Env().get("mock_verbose", "false"));
+    private static final boolean PRELOAD = Boolean.parseBoolean(EnvUtils.Env().get("mock_preload", "false"));
     private static WireMockServer refDataServer;
     private static WireMockServer buildCardServer;
+    private static WireMockServer graphqlServer;
+
+    private static WireMockConfiguration configuration(int port, String path) {
+        WireMockConfiguration configuration = options().port(port)
+                .containerThreads(CONTAINER_THREADS)
+                .asynchronousResponseEnabled(ASYNC_RESPONSES)
+                .asynchronousResponseThreads(ASYNC_RESPONSE_THREADS)
+                .notifier(new ConsoleNotifier(VERBOSE))
+                .stubRequestLoggingDisabled(!VERBOSE)
+                .usingFilesUnderClasspath(path);
+        if (MAX_REQUEST_JOURNAL_ENTRIES > 0) {
+            configuration.maxRequestJournalEntries(MAX_REQUEST_JOURNAL_ENTRIES);
+        } else {
+            configuration.disableRequestJournal();
+        }
+        return configuration;
+    }
 
     private static WireMockServer startServer(WireMockServer server, int port, String path) {
         if (server == null) {
-            server = new WireMockServer(options().port(port)
-                    .notifier(new ConsoleNotifier(true))
-                    .usingFilesUnderClasspath(path));
+            server = new WireMockServer(configuration(port, path));
         }
         if (!server.isRunning()) {
             server.start();
@@ -23,16 +55,57 @@ public class MockUtils {
         return server;
     }
 
-    public static void startRefDataServer() {
+    public static synchronized void startRefDataServer() {
         refDataServer = startServer(refDataServer, 7777, "mock/ref-data");
     }
 
-    public static void startBuildCardServer() {
+    public static synchronized void startBuildCardServer() {
         buildCardServer = startServer(buildCardServer, 7778, "mock/build-card");
     }
 
-    public static void startAllMockServer() {
+    public static synchronized void startGraphqlServer() {
+        // The transformer loads the schema and fixtures, only build it for the first start
+        if (graphqlServer == null) {
+            graphqlServer = new WireMockServer(configuration(ConstantUtils.GRAPHQL_MOCK_PORT, "mock/graphql")
+                    .extensions(new GraphqlMockTransformer()));
+        }
+        if (!graphqlServer.isRunning()) {
+            graphqlServer.start();
+        }
+    }
+
+    /**
+     * Starts the GraphQL stand-in when the env profile sets {@code graphql_mock=true}.
+     */
+    public static void startGraphqlServerIfEnabled() {
+        if (ConstantUtils.GRAPHQL_MOCK) {
+            startGraphqlServer();
+        }
+    }
+
+    /**
+     * Starts the dependency mocks, and the GraphQL stand-in only when the tests target it.
+     */
+    public static synchronized void startAllMockServer() {
         startRefDataServer();
         startBuildCardServer();
+        startGraphqlServerIfEnabled();
+    }
+
+    /**
+     * Starts every server when the env profile sets {@code mock_preload=true}.
+     */
+    public static void preloadIfEnabled() {
+        if (PRELOAD) {
+            startAllMockServer();
+        }
+    }
+
+    public static synchronized void stopAllMockServer() {
+        for (WireMockServer server : new WireMockServer[]{refDataServer, buildCardServer, graphqlServer}) {
+            if (server != null && server.isRunning()) {
+                server.stop();
+            }
+        }
     }
 }
@@ -0,0 +1,117 @@
+package utils;
+
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.hamcrest.TypeSafeDiagnosingMatcher;
+
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Order-insensitive comparison of two collections in O(n), counting duplicates.
+ * <p>
+ * Each element is hashed once, either by itself or by a key such as {@code Country::getCode}. When a key
+ * is used, elements with the same key but different content are reported as {@link #getChanged() changed}.
+ */
+public class MultisetDiff<T> {
+    private final List<T> missing = new ArrayList<>();
+    private final List<T> extra = new ArrayList<>();
+    private final List<T> duplicated = new ArrayList<>();
+    private final List<String> changed = new ArrayList<>();
+
+    private MultisetDiff() {
+    }
+
+    public static <T> MultisetDiff<T> compare(Collection<? extends T> expected, Collection<? extends T> actual) {
+        return compareBy(expected, actual, Function.identity());
+    }
+
+    public static <T, K> MultisetDiff<T> compareBy(Collection<? extends T> expected, Collection<? extends T> actual,
+                                                   Function<? super T, K> key) {
+        MultisetDiff<T> diff = new MultisetDiff<>();
+        Map<K, Deque<T>> unmatched = new HashMap<>(expected.size() * 2);
+        for (T element : expected) {
+            unmatched.computeIfAbsent(key.apply(element), k -> new ArrayDeque<>()).add(element);
+        }
+        Map<K, Integer> actualCounts = new HashMap<>(actual.size() * 2);
+        for (T element : actual) {
+            K elementKey = key.apply(element);
+            if (actualCounts.merge(elementKey, 1, Integer::sum) == 2) {
+                diff.duplicated.add(element);
+            }
+            Deque<T> candidates = unmatched.get(elementKey);
+            if (candidates == null || candidates.isEmpty()) {
+                diff.extra.add(element);
+                continue;
+            }
+            T expectedElement = candidates.poll();
+            if (!expectedElement.equals(element)) {
+                diff.changed.add(String.format("expected %s but was %s", expectedElement, element));
+            }
+        }
+        unmatched.values().forEach(diff.missing::addAll);
+        return diff;
+    }
+
+    /**
+     * @return expected elements without a counterpart in the actual collection.
+     */
+    public List<T> getMissing() {
+        return missing;
+    }
+
+    /**
+     * @return actual elements without a counterpart in the expected collection.
+     */
+    public List<T> getExtra() {
+        return extra;
+    }
+
+    /**
+     * @return one entry per actual element (or key) that occurs more than once.
+     */
+    public List<T> getDuplicated() {
+        return duplicated;
+    }
+
+    public List<String> getChanged() {
+        return changed;
+    }
+
+    public boolean isEqual() {
+        return missing.isEmpty() && extra.isEmpty() && changed.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("missing: %s, extra: %s, changed: %s, duplicated: %s", missing, extra, changed, duplicated);
+    }
+
+    /**
+     * Replacement for {@code actual.containsAll(expected) && expected.containsAll(actual)} that also checks how often
+     * each element occurs.
+     */
+    public static <T> Matcher<Collection<? extends T>> containsSameElementsAs(Collection<? extends T> expected) {
+        return new TypeSafeDiagnosingMatcher<>() {
+            @Override
+            protected boolean matchesSafely(Collection<? extends T> actual, Description mismatchDescription) {
+                MultisetDiff<T> diff = compare(expected, actual);
+                if (!diff.isEqual()) {
+                    mismatchDescription.appendText(diff.toString());
+                }
+                return diff.isEqual();
+            }
+
+            @Override
+            public void describeTo(Description description) {
+                description.appendText("the same elements in any order as ").appendValue(expected);
+            }
+        };
+    }
+}
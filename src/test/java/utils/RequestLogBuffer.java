@@ -0,0 +1,126 @@
+package utils;
+
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory log of the requests sent by the current test.
+ * <p>
+ * Only references to the request and response are kept while the test runs; nothing is formatted
+ * until {@link #format()} is called for a failed test. The buffer belongs to the test's thread only: threads
+ * created during a test (token refresh, pool refill, executors) must not keep it. Work handed to another
+ * thread, like the calls of {@link ConcurrentRequestUtils}, is logged when wrapped with
+ * {@link #withCurrentBuffer(Callable)}.
+ */
+public class RequestLogBuffer {
+    private static final int MAX_ENTRIES = Integer.parseInt(EnvUtils.Env().get("log_max_entries", "100"));
+    private static final int MAX_BODY_CHARS = Integer.parseInt(EnvUtils.Env().get("log_max_body_chars", "4096"));
+    private static final ThreadLocal<RequestLogBuffer> current = new ThreadLocal<>();
+
+    private final Queue<Entry> entries = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private volatile boolean closed;
+
+    private record Entry(FilterableRequestSpecification request, Response response, Throwable error) {
+    }
+
+    public static void begin() {
+        current.set(new RequestLogBuffer());
+    }
+
+    /**
+     * Detaches and closes the buffer of the current test. Threads that inherited it stop recording into it.
+     */
+    public static RequestLogBuffer end() {
+        RequestLogBuffer buffer = current.get();
+        current.remove();
+        if (buffer != null) {
+            buffer.closed = true;
+        }
+        return buffer;
+    }
+
+    /**
+     * @return {@code task} logging into the buffer of the calling thread, if any, while it runs on another thread
+     */
+    public static <V> Callable<V> withCurrentBuffer(Callable<V> task) {
+        RequestLogBuffer buffer = current.get();
+        if (buffer == null) {
+            return task;
+        }
+        return () -> {
+            RequestLogBuffer previous = current.get();
+            current.set(buffer);
+            try {
+                return task.call();
+            } finally {
+                if (previous == null) {
+                    current.remove();
+                } else {
+                    current.set(previous);
+                }
+            }
+        };
+    }
+
+    static void record(FilterableRequestSpecification request, Response response, Throwable error) {
+        RequestLogBuffer buffer = current.get();
+        if (buffer == null || buffer.closed) {
+            return;
+        }
+        buffer.entries.add(new Entry(request, response, error));
+        // Keep the most recent calls only
+        if (buffer.size.incrementAndGet() > MAX_ENTRIES && buffer.entries.poll() != null) {
+            buffer.size.decrementAndGet();
+        }
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public String format() {
+        StringBuilder builder = new StringBuilder();
+        for (Entry entry : entries) {
+            FilterableRequestSpecification request = entry.request();
+            builder.append("Request method:\t").append(request.getMethod()).append('\n')
+                    .append("Request URI:\t").append(request.getURI()).append('\n')
+                    .append("Headers:\n").append(request.getHeaders()).append('\n')
+                    .append("Body:\n").append(truncate(bodyOf(request.getBody()))).append('\n');
+            if (entry.response() != null) {
+                Response response = entry.response();
+                builder.append(response.getStatusLine()).append('\n')
+                        .append(response.getHeaders()).append('\n')
+                        .append('\n').append(truncate(response.asString())).append('\n');
+            }
+            if (entry.error() != null) {
+                builder.append("Request failed: ").append(entry.error()).append('\n');
+            }
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    private static String bodyOf(Object body) {
+        if (body == null) {
+            return "<none>";
+        }
+        if (body instanceof byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        return body.toString();
+    }
+
+    private static String truncate(String value) {
+        if (value == null || value.length() <= MAX_BODY_CHARS) {
+            return value;
+        }
+        return value.substring(0, MAX_BODY_CHARS) + String.format("... [%d more chars]", value.length() - MAX_BODY_CHARS);
+    }
+}
@@ -0,0 +1,35 @@
+package utils;
+
+import io.qameta.allure.Allure;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+/**
+ * Writes the buffered request/response log of a test to log4j2 and Allure, but only when the test failed.
+ * <p>
+ * The buffer is opened before any {@code @BeforeEach} method and closed after every {@code @AfterEach}
+ * method, so calls made there (token, login, clean-up...) are logged too when they, or the test, fail.
+ */
+public class RequestLogExtension implements BeforeEachCallback, AfterEachCallback {
+    private static final Logger logger = LogManager.getLogger(RequestLogExtension.class);
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        RequestLogBuffer.begin();
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        // Always detach the buffer, also when a @BeforeEach or @AfterEach method failed
+        RequestLogBuffer buffer = RequestLogBuffer.end();
+        if (buffer == null || buffer.isEmpty() || context.getExecutionException().isEmpty()) {
+            return;
+        }
+        String log = buffer.format();
+        logger.error("Requests sent by failed test {}:\n{}", context.getDisplayName(), log);
+        Allure.addAttachment("Request log", "text/plain", log, ".txt");
+    }
+}
@@ -0,0 +1,54 @@
+package utils;
+
+import io.restassured.builder.RequestSpecBuilder;
+import io.restassured.filter.Filter;
+import io.restassured.filter.log.RequestLoggingFilter;
+import io.restassured.filter.log.ResponseLoggingFilter;
+import io.restassured.specification.RequestSpecification;
+
+import java.util.List;
+
+import static utils.ConstantUtils.*;
+
+/**
+ * Builds a fresh {@link RequestSpecification} per call so tests never share the mutable
+ * {@code RestAssured.baseURI}/{@code RestAssured.port} globals when running in parallel.
+ * All specs share the pooled HTTP client from {@link HttpClientUtils} and record their latency
+ * in the {@link LatencyRecorder}.
+ * <p>
+ * Request/response logging is controlled by {@code log_mode} in the env files:
+ * {@code on_failure} (default) buffers the calls of a test and only prints them when it fails,
+ * {@code all} prints every call to the console and {@code none} disables logging.
+ */
+public class RequestSpecUtils {
+    private static final List<Filter> loggingFilters = createLoggingFilters(EnvUtils.Env().get("log_mode", "on_failure"));
+    private static final Filter latencyFilter = new LatencyFilter();
+
+    public static RequestSpecification apiSpec() {
+        return new RequestSpecBuilder()
+                .setBaseUri(HOST)
+                .setPort(PORT)
+                .setConfig(HttpClientUtils.pooledConfig())
+                .addFilter(latencyFilter)
+                .addFilters(loggingFilters)
+                .build();
+    }
+
+    public static RequestSpecification graphqlSpec() {
+        return new RequestSpecBuilder()
+                .setBaseUri(GRAPHQL_HOST)
+                .setPort(GRAPHQL_PORT)
+                .setConfig(HttpClientUtils.pooledConfig())
+                .addFilter(latencyFilter)
+                .addFilters(loggingFilters)
+                .build();
+    }
+
+    private static List<Filter> createLoggingFilters(String logMode) {
+        return switch (logMode) {
+            case "all" -> List.of(new RequestLoggingFilter(), new ResponseLoggingFilter());
+            case "none" -> List.of();
+            default -> List.of(new BufferedLoggingFilter());
+        };
+    }
+}
@@ -0,0 +1,101 @@
+package utils;
+
+import io.restassured.response.Response;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Memoizes responses of reference data endpoints (e.g. {@code GET_COUNTRIES_API}) for the run, so tests
+ * that read the same unchanged data do not each pay a round trip.
+ * <p>
+ * Entries expire after {@code response_cache_ttl_ms}. Once {@code response_cache_max_entries} is reached
+ * the least recently used entry is evicted. Only 2xx responses are kept, and the cache can be turned off
+ * with {@code response_cache_enabled=false}. Never use it for endpoints whose data the tests change.
+ */
+public class ResponseCache {
+    private static final boolean ENABLED = Boolean.parseBoolean(EnvUtils.Env().get("response_cache_enabled", "true"));
+    private static final long TTL_NANOS = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(EnvUtils.Env().get("response_cache_ttl_ms", "300000")));
+    private static final int MAX_ENTRIES = Integer.parseInt(EnvUtils.Env().get("response_cache_max_entries", "256"));
+    // Access ordered, so iteration starts at the least recently used entry
+    private static final Map<String, Entry> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong evictions = new AtomicLong();
+
+    public record CacheStats(long hits, long misses, long evictions, int size) {
+    }
+
+    private record Entry(Response response, long expiresAtNanos) {
+        boolean isExpired() {
+            return System.nanoTime() - expiresAtNanos >= 0;
+        }
+    }
+
+    private ResponseCache() {
+    }
+
+    /**
+     * @param key    identifies the request, e.g. {@code "GET " + GET_COUNTRIES_API}
+     * @param loader sends the request on a miss
+     */
+    public static Response get(String key, Supplier<Response> loader) {
+        if (!ENABLED) {
+            return loader.get();
+        }
+        Entry entry = lookup(key);
+        if (entry != null) {
+            hits.incrementAndGet();
+            return entry.response();
+        }
+        misses.incrementAndGet();
+        // Loaded outside the lock, concurrent misses on the same key may both send the request
+        Response response = loader.get();
+        if (response.statusCode() / 100 == 2) {
+            // Buffer the body so every reader gets its own copy instead of a consumed stream
+            response.asByteArray();
+            store(key, new Entry(response, System.nanoTime() + TTL_NANOS));
+        }
+        return response;
+    }
+
+    public static CacheStats getStats() {
+        synchronized (cache) {
+            return new CacheStats(hits.get(), misses.get(), evictions.get(), cache.size());
+        }
+    }
+
+    public static void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    private static Entry lookup(String key) {
+        synchronized (cache) {
+            Entry entry = cache.get(key);
+            if (entry != null && entry.isExpired()) {
+                cache.remove(key);
+                evictions.incrementAndGet();
+                return null;
+            }
+            return entry;
+        }
+    }
+
+    private static void store(String key, Entry entry) {
+        synchronized (cache) {
+            cache.put(key, entry);
+            Iterator<Entry> eldest = cache.values().iterator();
+            while (cache.size() > MAX_ENTRIES && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package utils;
+
+import org.junit.platform.engine.FilterResult;
+import org.junit.platform.engine.TestDescriptor;
+import org.junit.platform.launcher.PostDiscoveryFilter;
+
+/**
+ * Keeps only the tests of this shard, see {@link ShardPlan}. Registered through
+ * {@code META-INF/services/org.junit.platform.launcher.PostDiscoveryFilter}, it includes everything
+ * unless {@code shard.count} is above 1.
+ */
+public class ShardFilter implements PostDiscoveryFilter {
+
+    @Override
+    public FilterResult apply(TestDescriptor descriptor) {
+        ShardPlan.checkConfiguration();
+        if (!ShardPlan.isEnabled()) {
+            return FilterResult.included("Sharding disabled");
+        }
+        return FilterResult.includedIf(ShardPlan.forTree(descriptor).isIncluded(descriptor),
+                () -> String.format("Assigned to shard %d of %d", ShardPlan.SHARD_INDEX, ShardPlan.SHARD_COUNT),
+                () -> String.format("Assigned to another shard than %d of %d", ShardPlan.SHARD_INDEX, ShardPlan.SHARD_COUNT));
+    }
+}
@@ -0,0 +1,247 @@
+package utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.platform.engine.TestDescriptor;
+import org.junit.platform.engine.UniqueId;
+import org.junit.platform.engine.support.descriptor.ClassSource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Splits the discovered test classes into {@code shard.count} shards of similar duration and decides what
+ * shard {@code shard.index} runs. Both properties come from {@code -PshardIndex}/{@code -PshardCount}.
+ * <p>
+ * Every shard computes the plan on its own, so all of them must plan from the same input, or a test can end
+ * up on no shard at all. The durations therefore only come from the one history file passed to every shard
+ * with {@code -PtestHistoryFile} ({@link TestHistory#SHARED_FILE}), never from what an agent has lying around.
+ * Units are handed out longest first to the least loaded shard (LPT), using the average known duration for
+ * tests without history, and ties are broken by unique id. A class longer than a fair share of the run is
+ * split into its methods. A parameterized method always stays whole on one shard, so each of its invocations
+ * is reported once, by the shard that ran it.
+ * <p>
+ * Without that file whole classes are assigned by a hash of their name, which needs no input at all. Either
+ * way the plan is logged with a fingerprint of its assignments and written to {@link #REPORT_DIR}: shards
+ * that report different fingerprints did not run the same plan.
+ */
+public class ShardPlan {
+    public static final int SHARD_INDEX = Integer.parseInt(System.getProperty("shard.index", "0"));
+    public static final int SHARD_COUNT = Integer.parseInt(System.getProperty("shard.count", "1"));
+    public static final Path REPORT_DIR = Path.of("build", "reports", "shard-plan");
+    private static final Logger logger = LogManager.getLogger(ShardPlan.class);
+    private static final long DEFAULT_DURATION_MS = 1000;
+    private static volatile ShardPlan current;
+
+    private final TestDescriptor root;
+    private final int shardCount;
+    private final int shardIndex;
+    private final Map<UniqueId, Integer> assignments = new HashMap<>();
+    private final Set<UniqueId> splitClasses = new HashSet<>();
+    private final String fingerprint;
+
+    private record Unit(UniqueId id, long durationMs) {
+    }
+
+    public static boolean isEnabled() {
+        return SHARD_COUNT > 1;
+    }
+
+    /**
+     * Fails the run on an impossible shard, which would otherwise hand every test to the other shards and
+     * pass with almost nothing run.
+     */
+    static void checkConfiguration() {
+        if (SHARD_COUNT < 1 || SHARD_INDEX < 0 || SHARD_INDEX >= SHARD_COUNT) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid shard %d of %d, shard.index must be between 0 and shard.count - 1", SHARD_INDEX, SHARD_COUNT));
+        }
+    }
+
+    /**
+     * @return the plan for the test tree {@code descriptor} belongs to, computed on first use
+     */
+    static synchronized ShardPlan forTree(TestDescriptor descriptor) {
+        TestDescriptor root = descriptor;
+        while (root.getParent().isPresent()) {
+            root = root.getParent().get();
+        }
+        // Descriptors are removed while the filter runs, so the plan is computed once per discovered tree
+        if (current == null || current.root != root) {
+            boolean shared = TestHistory.hasSharedHistory();
+            String basis = shared
+                    ? "durations from " + TestHistory.SHARED_FILE
+                    : "class name hash, no test.history.file to share";
+            ShardPlan plan = new ShardPlan(root, shared ? TestHistory.previousRuns() : null, SHARD_COUNT, SHARD_INDEX);
+            long ownUnits = plan.assignments.values().stream().filter(shard -> shard == SHARD_INDEX).count();
+            logger.info("Shard plan {} ({}): shard {} of {} runs {} of {} units", plan.fingerprint, basis, SHARD_INDEX,
+                    SHARD_COUNT, ownUnits, plan.assignments.size());
+            plan.writeReport(basis);
+            current = plan;
+        }
+        return current;
+    }
+
+    /**
+     * @param history the shared history to balance by durations, {@code null} to assign by class name hash
+     */
+    ShardPlan(TestDescriptor root, Map<String, TestHistory.Entry> history, int shardCount, int shardIndex) {
+        this.root = root;
+        this.shardCount = shardCount;
+        this.shardIndex = shardIndex;
+        List<TestDescriptor> classes = new ArrayList<>();
+        root.accept(descriptor -> {
+            if (isTopLevelClass(descriptor)) {
+                classes.add(descriptor);
+            }
+        });
+        if (history != null) {
+            assignByDuration(classes, history);
+        } else {
+            assignByClassName(classes);
+        }
+        fingerprint = computeFingerprint();
+    }
+
+    /**
+     * LPT over the durations of the shared history, see the class comment.
+     */
+    private void assignByDuration(List<TestDescriptor> classes, Map<String, TestHistory.Entry> history) {
+        long fallbackMs = (long) history.entrySet().stream()
+                .filter(entry -> TestHistory.isClassKey(entry.getKey()))
+                .mapToLong(entry -> entry.getValue().durationMs())
+                .average()
+                .orElse(DEFAULT_DURATION_MS);
+        long totalMs = classes.stream().mapToLong(descriptor -> duration(history, descriptor, fallbackMs)).sum();
+        long fairShareMs = totalMs / shardCount;
+
+        List<Unit> units = new ArrayList<>();
+        for (TestDescriptor testClass : classes) {
+            long classMs = duration(history, testClass, fallbackMs);
+            if (classMs <= fairShareMs || testClass.getChildren().size() < 2) {
+                units.add(new Unit(testClass.getUniqueId(), classMs));
+                continue;
+            }
+            splitClasses.add(testClass.getUniqueId());
+            long methodFallbackMs = classMs / testClass.getChildren().size();
+            for (TestDescriptor method : testClass.getChildren()) {
+                units.add(new Unit(method.getUniqueId(), duration(history, method, methodFallbackMs)));
+            }
+        }
+        long[] loads = new long[shardCount];
+        units.sort(Comparator.comparingLong(Unit::durationMs).reversed().thenComparing(unit -> unit.id().toString()));
+        for (Unit unit : units) {
+            int lightest = 0;
+            for (int shard = 1; shard < shardCount; shard++) {
+                if (loads[shard] < loads[lightest]) {
+                    lightest = shard;
+                }
+            }
+            loads[lightest] += unit.durationMs();
+            assignments.put(unit.id(), lightest);
+        }
+    }
+
+    /**
+     * Whole classes by a stable hash of their name, the same on every agent whatever history it has.
+     */
+    private void assignByClassName(List<TestDescriptor> classes) {
+        for (TestDescriptor testClass : classes) {
+            String className = ((ClassSource) testClass.getSource().orElseThrow()).getClassName();
+            assignments.put(testClass.getUniqueId(), Math.floorMod(className.hashCode(), shardCount));
+        }
+    }
+
+    /**
+     * @return a short hash of every assignment and split, equal on all shards when they planned alike
+     */
+    private String computeFingerprint() {
+        List<String> lines = new ArrayList<>();
+        assignments.forEach((id, shard) -> lines.add(id + "=" + shard));
+        splitClasses.forEach(id -> lines.add(id + "=split"));
+        Collections.sort(lines);
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 6);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    String fingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * @return the shard the class or method with this unique id is assigned to, empty when it is not a unit
+     * of the plan, e.g. a split class
+     */
+    Optional<Integer> shardOf(UniqueId id) {
+        return Optional.ofNullable(assignments.get(id));
+    }
+
+    /**
+     * Writes the fingerprint and the assignments to {@link #REPORT_DIR}, CI can compare the first line of
+     * every shard's file.
+     */
+    private void writeReport(String basis) {
+        List<String> lines = new ArrayList<>();
+        lines.add(fingerprint);
+        lines.add("basis: " + basis);
+        assignments.entrySet().stream()
+                .map(entry -> entry.getValue() + " " + entry.getKey())
+                .sorted()
+                .forEach(lines::add);
+        try {
+            Files.createDirectories(REPORT_DIR);
+            Files.write(REPORT_DIR.resolve(String.format("shard-%d.txt", shardIndex)), lines);
+        } catch (IOException e) {
+            // Only the cross-check is lost, the plan itself is in place
+            logger.warn("Could not write the shard plan report", e);
+        }
+    }
+
+    /**
+     * @return whether the class with this unique id is split into methods over several shards, so a shard
+     * only runs part of it
+     */
+    static boolean isSplit(UniqueId classId) {
+        ShardPlan plan = current;
+        return plan != null && plan.splitClasses.contains(classId);
+    }
+
+    boolean isIncluded(TestDescriptor descriptor) {
+        UniqueId id = descriptor.getUniqueId();
+        if (splitClasses.contains(id)) {
+            // Kept everywhere, their methods are filtered instead
+            return true;
+        }
+        Integer shard = assignments.get(id);
+        return shard == null || shard == shardIndex;
+    }
+
+    private static boolean isTopLevelClass(TestDescriptor descriptor) {
+        return descriptor.getSource().filter(ClassSource.class::isInstance).isPresent()
+                && descriptor.getParent().map(parent -> parent.getSource().isEmpty()).orElse(false);
+    }
+
+    private static long duration(Map<String, TestHistory.Entry> history, TestDescriptor descriptor, long fallbackMs) {
+        TestHistory.Entry entry = history.get(TestHistory.key(descriptor.getSource().orElse(null)));
+        return entry == null ? fallbackMs : entry.durationMs();
+    }
+}
@@ -0,0 +1,115 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.engine.TestDescriptor;
+import org.junit.platform.engine.TestSource;
+import org.junit.platform.engine.UniqueId;
+import org.junit.platform.engine.support.descriptor.AbstractTestDescriptor;
+import org.junit.platform.engine.support.descriptor.ClassSource;
+import org.junit.platform.engine.support.descriptor.EngineDescriptor;
+import org.junit.platform.engine.support.descriptor.MethodSource;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+class ShardPlanTest {
+
+    @Test
+    void assignsLongestFirstToTheLeastLoadedShard() {
+        EngineDescriptor root = tree("A", "B", "C", "D");
+        Map<String, TestHistory.Entry> history = Map.of(
+                "A", entry(400), "B", entry(300), "C", entry(200), "D", entry(100));
+
+        ShardPlan plan = new ShardPlan(root, history, 2, 0);
+
+        // A and D on one shard, B and C on the other, 500 ms each
+        assertThat(plan.shardOf(classId(root, "A")), is(Optional.of(0)));
+        assertThat(plan.shardOf(classId(root, "B")), is(Optional.of(1)));
+        assertThat(plan.shardOf(classId(root, "C")), is(Optional.of(1)));
+        assertThat(plan.shardOf(classId(root, "D")), is(Optional.of(0)));
+    }
+
+    @Test
+    void splitsAClassLongerThanAFairShareIntoItsMethods() {
+        EngineDescriptor root = tree("Long", "Short");
+        Map<String, TestHistory.Entry> history = Map.of(
+                "Long", entry(900), "Long#first()", entry(450), "Long#second()", entry(450), "Short", entry(100));
+
+        ShardPlan plan = new ShardPlan(root, history, 2, 1);
+
+        TestDescriptor longClass = find(root, "Long");
+        assertThat(plan.shardOf(longClass.getUniqueId()), is(Optional.empty()));
+        assertThat(plan.isIncluded(longClass), is(true));
+        TestDescriptor[] methods = longClass.getChildren().toArray(TestDescriptor[]::new);
+        assertThat(plan.shardOf(methods[0].getUniqueId()), not(plan.shardOf(methods[1].getUniqueId())));
+    }
+
+    @Test
+    void assignsByClassNameHashWithoutHistory() {
+        EngineDescriptor root = tree("A", "B", "C");
+
+        ShardPlan plan = new ShardPlan(root, null, 3, 0);
+
+        for (String className : new String[]{"A", "B", "C"}) {
+            assertThat(plan.shardOf(classId(root, className)), is(Optional.of(Math.floorMod(className.hashCode(), 3))));
+        }
+    }
+
+    @Test
+    void fingerprintIsTheSameOnEveryShardAndForEveryDiscoveryOrder() {
+        Map<String, TestHistory.Entry> history = Map.of("A", entry(300), "B", entry(200), "C", entry(100));
+
+        String first = new ShardPlan(tree("A", "B", "C"), history, 2, 0).fingerprint();
+
+        assertThat(new ShardPlan(tree("A", "B", "C"), history, 2, 1).fingerprint(), is(first));
+        assertThat(new ShardPlan(tree("C", "A", "B"), history, 2, 0).fingerprint(), is(first));
+        assertThat(new ShardPlan(tree("A", "B", "C"), Map.of("A", entry(100)), 2, 0).fingerprint(), not(first));
+    }
+
+    private static TestHistory.Entry entry(long durationMs) {
+        return new TestHistory.Entry(durationMs, 1, false, 0);
+    }
+
+    /**
+     * @return an engine with one class per name, each with the methods {@code first()} and {@code second()}
+     */
+    private static EngineDescriptor tree(String... classNames) {
+        EngineDescriptor root = new EngineDescriptor(UniqueId.forEngine("test"), "test");
+        for (String className : classNames) {
+            UniqueId classId = root.getUniqueId().append("class", className);
+            TestDescriptor testClass = new Node(classId, ClassSource.from(className), TestDescriptor.Type.CONTAINER);
+            root.addChild(testClass);
+            for (String method : new String[]{"first", "second"}) {
+                testClass.addChild(new Node(classId.append("method", method + "()"),
+                        MethodSource.from(className, method, ""), TestDescriptor.Type.TEST));
+            }
+        }
+        return root;
+    }
+
+    private static TestDescriptor find(TestDescriptor root, String className) {
+        return root.findByUniqueId(classId(root, className)).orElseThrow();
+    }
+
+    private static UniqueId classId(TestDescriptor root, String className) {
+        return root.getUniqueId().append("class", className);
+    }
+
+    private static class Node extends AbstractTestDescriptor {
+        private final Type type;
+
+        Node(UniqueId uniqueId, TestSource source, Type type) {
+            super(uniqueId, uniqueId.getLastSegment().getValue(), source);
+            this.type = type;
+        }
+
+        @Override
+        public Type getType() {
+            return type;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package utils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Compares two JSON documents by walking their token streams side by side, so neither document has to be
+ * held in memory as a tree.
+ * <p>
+ * Arrays are compared element by element. Objects are streamed as long as both sides list their fields in the
+ * same order; when the order differs, only the remaining fields of that object are buffered and compared
+ * regardless of order. Ignored paths use the json-unit syntax of {@code CreateUserTest.IGNORE_FIELDS},
+ * e.g. {@code addresses[*].id}.
+ */
+public class StreamingJsonComparator {
+    private static final JsonFactory jsonFactory = new JsonFactory();
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final String MISSING = "<missing>";
+
+    private final JsonParser expected;
+    private final JsonParser actual;
+    private final int maxDifferences;
+    private final List<Pattern> ignoredPaths;
+    private final List<Difference> differences = new ArrayList<>();
+
+    public record Difference(String path, String expected, String actual) {
+        @Override
+        public String toString() {
+            return String.format("%s: expected %s but was %s", path.isEmpty() ? "$" : path, expected, actual);
+        }
+    }
+
+    private static class DifferenceLimitReached extends RuntimeException {
+        DifferenceLimitReached() {
+            super(null, null, false, false);
+        }
+    }
+
+    private StreamingJsonComparator(JsonParser expected, JsonParser actual, int maxDifferences, String... ignoredPaths) {
+        this.expected = expected;
+        this.actual = actual;
+        this.maxDifferences = maxDifferences;
+        this.ignoredPaths = new ArrayList<>();
+        for (String ignoredPath : ignoredPaths) {
+            this.ignoredPaths.add(toPattern(ignoredPath));
+        }
+    }
+
+    /**
+     * @return the first {@code maxDifferences} differences, empty when both documents are equal.
+     */
+    public static List<Difference> compare(InputStream expected, InputStream actual, int maxDifferences,
+                                           String... ignoredPaths) throws IOException {
+        try (JsonParser expectedParser = jsonFactory.createParser(expected);
+             JsonParser actualParser = jsonFactory.createParser(actual)) {
+            StreamingJsonComparator comparator = new StreamingJsonComparator(expectedParser, actualParser,
+                    maxDifferences, ignoredPaths);
+            expectedParser.nextToken();
+            actualParser.nextToken();
+            try {
+                comparator.compareValue("");
+            } catch (DifferenceLimitReached e) {
+                // Enough differences collected
+            }
+            return comparator.differences;
+        }
+    }
+
+    private void compareValue(String path) throws IOException {
+        JsonToken expectedToken = expected.currentToken();
+        JsonToken actualToken = actual.currentToken();
+        if (isIgnored(path)) {
+            expected.skipChildren();
+            actual.skipChildren();
+        } else if (expectedToken == JsonToken.START_OBJECT && actualToken == JsonToken.START_OBJECT) {
+            compareObject(path);
+        } else if (expectedToken == JsonToken.START_ARRAY && actualToken == JsonToken.START_ARRAY) {
+            compareArray(path);
+        } else if (expectedToken != null && actualToken != null && expectedToken.isScalarValue() && actualToken.isScalarValue()) {
+            if (!scalarEquals(expected, actual)) {
+                addDifference(path, describe(expected), describe(actual));
+            }
+        } else {
+            addDifference(path, describe(expected), describe(actual));
+            expected.skipChildren();
+            actual.skipChildren();
+        }
+    }
+
+    private void compareObject(String path) throws IOException {
+        while (true) {
+            JsonToken expectedToken = expected.nextToken();
+            JsonToken actualToken = actual.nextToken();
+            if (expectedToken == JsonToken.END_OBJECT && actualToken == JsonToken.END_OBJECT) {
+                return;
+            }
+            if (expectedToken == JsonToken.FIELD_NAME && actualToken == JsonToken.FIELD_NAME
+                    && expected.currentName().equals(actual.currentName())) {
+                String childPath = childPath(path, expected.currentName());
+                expected.nextToken();
+                actual.nextToken();
+                compareValue(childPath);
+                continue;
+            }
+            // Field order differs, compare the rest of this object without relying on order
+            compareFields(path, readRemainingFields(expected), readRemainingFields(actual));
+            return;
+        }
+    }
+
+    private void compareArray(String path) throws IOException {
+        int index = 0;
+        while (true) {
+            JsonToken expectedToken = expected.nextToken();
+            JsonToken actualToken = actual.nextToken();
+            if (expectedToken == JsonToken.END_ARRAY && actualToken == JsonToken.END_ARRAY) {
+                return;
+            }
+            if (expectedToken == JsonToken.END_ARRAY) {
+                int extra = countRemainingElements(actual);
+                addDifference(path, String.format("array of size %d", index), String.format("array of size %d", index + extra));
+                return;
+            }
+            if (actualToken == JsonToken.END_ARRAY) {
+                int missing = countRemainingElements(expected);
+                addDifference(path, String.format("array of size %d", index + missing), String.format("array of size %d", index));
+                return;
+            }
+            compareValue(path + "[" + index + "]");
+            index++;
+        }
+    }
+
+    /**
+     * Counts the elements left in the array, starting with the element at the current token.
+     */
+    private static int countRemainingElements(JsonParser parser) throws IOException {
+        int count = 0;
+        while (parser.currentToken() != JsonToken.END_ARRAY) {
+            parser.skipChildren();
+            count++;
+            parser.nextToken();
+        }
+        return count;
+    }
+
+    /**
+     * Reads the fields left in the current object, starting with the token the parser is on.
+     */
+    private static Map<String, JsonNode> readRemainingFields(JsonParser parser) throws IOException {
+        Map<String, JsonNode> fields = new LinkedHashMap<>();
+        while (parser.currentToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            fields.put(name, mapper.readTree(parser));
+            parser.nextToken();
+        }
+        return fields;
+    }
+
+    private void compareFields(String path, Map<String, JsonNode> expectedFields, Map<String, JsonNode> actualFields) {
+        Set<String> names = new LinkedHashSet<>(expectedFields.keySet());
+        names.addAll(actualFields.keySet());
+        for (String name : names) {
+            compareNodes(childPath(path, name), expectedFields.get(name), actualFields.get(name));
+        }
+    }
+
+    private void compareNodes(String path, JsonNode expectedNode, JsonNode actualNode) {
+        if (isIgnored(path)) {
+            return;
+        }
+        if (expectedNode == null || actualNode == null) {
+            addDifference(path, expectedNode == null ? MISSING : expectedNode.toString(),
+                    actualNode == null ? MISSING : actualNode.toString());
+        } else if (expectedNode.isObject() && actualNode.isObject()) {
+            Map<String, JsonNode> expectedFields = new LinkedHashMap<>();
+            Map<String, JsonNode> actualFields = new LinkedHashMap<>();
+            expectedNode.fields().forEachRemaining(field -> expectedFields.put(field.getKey(), field.getValue()));
+            actualNode.fields().forEachRemaining(field -> actualFields.put(field.getKey(), field.getValue()));
+            compareFields(path, expectedFields, actualFields);
+        } else if (expectedNode.isArray() && actualNode.isArray()) {
+            if (expectedNode.size() != actualNode.size()) {
+                addDifference(path, String.format("array of size %d", expectedNode.size()),
+                        String.format("array of size %d", actualNode.size()));
+                return;
+            }
+            Iterator<JsonNode> expectedElements = expectedNode.elements();
+            Iterator<JsonNode> actualElements = actualNode.elements();
+            for (int index = 0; expectedElements.hasNext(); index++) {
+                compareNodes(path + "[" + index + "]", expectedElements.next(), actualElements.next());
+            }
+        } else if (expectedNode.isNumber() && actualNode.isNumber()) {
+            if (expectedNode.decimalValue().compareTo(actualNode.decimalValue()) != 0) {
+                addDifference(path, expectedNode.toString(), actualNode.toString());
+            }
+        } else if (!expectedNode.equals(actualNode)) {
+            addDifference(path, expectedNode.toString(), actualNode.toString());
+        }
+    }
+
+    private static boolean scalarEquals(JsonParser expected, JsonParser actual) throws IOException {
+        JsonToken expectedToken = expected.currentToken();
+        JsonToken actualToken = actual.currentToken();
+        if (expectedToken.isNumeric() && actualToken.isNumeric()) {
+            return expected.getDecimalValue().compareTo(actual.getDecimalValue()) == 0;
+        }
+        return expectedToken == actualToken && expected.getText().equals(actual.getText());
+    }
+
+    private static String describe(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == null) {
+            return MISSING;
+        }
+        return switch (token) {
+            case START_OBJECT -> "an object";
+            case START_ARRAY -> "an array";
+            case VALUE_STRING -> "\"" + parser.getText() + "\"";
+            default -> parser.getText();
+        };
+    }
+
+    private void addDifference(String path, String expectedValue, String actualValue) {
+        differences.add(new Difference(path, expectedValue, actualValue));
+        if (differences.size() >= maxDifferences) {
+            throw new DifferenceLimitReached();
+        }
+    }
+
+    private boolean isIgnored(String path) {
+        for (Pattern ignoredPath : ignoredPaths) {
+            if (ignoredPath.matcher(path).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String childPath(String path, String name) {
+        return path.isEmpty() ? name : path + "." + name;
+    }
+
+    private static Pattern toPattern(String ignoredPath) {
+        StringBuilder regex = new StringBuilder();
+        for (String part : ignoredPath.split("\\[\\*]", -1)) {
+            if (!regex.isEmpty()) {
+                regex.append("\\[\\d+]");
+            }
+            regex.append(Pattern.quote(part));
+        }
+        return Pattern.compile(regex.toString());
+    }
+}
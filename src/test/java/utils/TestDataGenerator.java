@@ -0,0 +1,86 @@
+package utils;
+
+import model.dto.user.UserRequest;
+
+import java.security.SecureRandom;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates unique emails and seeded names/phones for test users without locks.
+ * <p>
+ * Unique values are {@code <run>_<node>_<thread slot>_<sequence>}: the run start and node id keep runner
+ * nodes and reruns apart, each thread gets a slot once and then only bumps its own counter, so two threads
+ * can never produce the same value. Node id comes from {@code data_node_id} (the shard index on sharded runs,
+ * see {@code build.gradle}), otherwise it is random.
+ * <p>
+ * Names and phones come from a per-thread random seeded with {@code data_seed} and the thread slot, so a
+ * run with the same seed and the same thread layout produces the same data.
+ */
+public class TestDataGenerator {
+    private static final String[] FIRST_NAMES = {"Jos", "Anna", "Minh", "Lan", "John", "Maria", "Huy", "Linh", "Peter", "Mai"};
+    private static final String[] LAST_NAMES = {"Doe", "Nguyen", "Tran", "Smith", "Le", "Pham", "Brown", "Vo", "Garcia", "Dang"};
+    private static final String RUN_ID = Long.toString(System.currentTimeMillis() / 1000, 36);
+    private static final String NODE_ID = EnvUtils.Env().get("data_node_id", defaultNodeId());
+    private static final long SEED = Long.parseLong(EnvUtils.Env().get("data_seed", "20240101"));
+    private static final AtomicInteger nextSlot = new AtomicInteger();
+    private static final ThreadLocal<ThreadState> state = ThreadLocal.withInitial(() -> new ThreadState(nextSlot.getAndIncrement()));
+
+    private static final class ThreadState {
+        private final String slot;
+        private final SplittableRandom random;
+        private long sequence;
+
+        private ThreadState(int slot) {
+            this.slot = Integer.toString(slot, 36);
+            this.random = new SplittableRandom(SEED + slot);
+        }
+    }
+
+    private TestDataGenerator() {
+    }
+
+    /**
+     * @return a value no other thread, node or run produces, e.g. {@code sk2m1a_1x9k3f_4_1b}
+     */
+    public static String uniqueId() {
+        ThreadState current = state.get();
+        return String.format("%s_%s_%s_%s", RUN_ID, NODE_ID, current.slot, Long.toString(current.sequence++, 36));
+    }
+
+    public static String email() {
+        return String.format(ConstantUtils.EMAIL_TEMPLATE, uniqueId());
+    }
+
+    public static String firstName() {
+        return FIRST_NAMES[state.get().random.nextInt(FIRST_NAMES.length)];
+    }
+
+    public static String lastName() {
+        return LAST_NAMES[state.get().random.nextInt(LAST_NAMES.length)];
+    }
+
+    /**
+     * @return a 10 digit phone number starting with 0, like the default test user's
+     */
+    public static String phone() {
+        return String.format("0%09d", state.get().random.nextInt(1_000_000_000));
+    }
+
+    /**
+     * @return {@link UserRequest#getDefault()} with a unique email and generated names and phone
+     */
+    public static UserRequest userRequest() {
+        UserRequest request = UserRequest.getDefault();
+        request.setEmail(email());
+        request.setFirstName(firstName());
+        request.setLastName(lastName());
+        request.setPhone(phone());
+        return request;
+    }
+
+    private static String defaultNodeId() {
+        // 40 random bits, two JVMs started in the same second are as good as never alike
+        return Long.toString(new SecureRandom().nextLong() >>> 24, 36);
+    }
+}
@@ -0,0 +1,220 @@
+package utils;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.platform.engine.TestSource;
+import org.junit.platform.engine.support.descriptor.ClassSource;
+import org.junit.platform.engine.support.descriptor.MethodSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Durations and failures of earlier runs, used to balance shards ({@link ShardPlan}) and to order tests
+ * ({@link HistoryClassOrderer}, {@link HistoryMethodOrderer}).
+ * <p>
+ * Entries are keyed by test class name, or {@code ClassName#method(parameter types)} for methods, see
+ * {@link #key(TestSource)}. Every JVM writes its own {@code history-shard-<index>.json} under
+ * {@code test.history.dir} (set by {@code build.gradle}), so shards never write the same file. Durations are
+ * a moving average so one slow run does not reshuffle the shards.
+ * <p>
+ * The history is read from {@code test.history.file} ({@code -PtestHistoryFile}) when it is set, otherwise
+ * from the merge of the files in {@code test.history.dir}. Sharded CI runs should pass one file to every
+ * shard, e.g. the artifact of the previous run, and build the next one with the {@code mergeTestHistory}
+ * task, which calls {@link #main(String[])} on the shard files of the run.
+ */
+public class TestHistory {
+    public static final String SHARED_FILE = System.getProperty("test.history.file", "");
+    private static final String DIR = System.getProperty("test.history.dir", ".test-history");
+    private static final String FILE_TEMPLATE = "history-shard-%d.json";
+    private static final double NEW_RUN_WEIGHT = 0.5;
+    private static final Logger logger = LogManager.getLogger(TestHistory.class);
+    private static final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private static volatile Map<String, Entry> previousRuns;
+
+    /**
+     * @param durationMs         moving average of the duration
+     * @param runs               number of recorded runs, the most recorded entry wins when files disagree,
+     *                           see {@link #merge(Entry, Entry)}
+     * @param failedLastRun      whether the test, or one of its invocations, failed the last time it ran
+     * @param lastFailureEpochMs when the test last failed, 0 if it never did
+     */
+    public record Entry(long durationMs, int runs, boolean failedLastRun, long lastFailureEpochMs) {
+    }
+
+    private TestHistory() {
+    }
+
+    /**
+     * @return the history key of a class or method source, {@code null} for other sources
+     */
+    public static String key(TestSource source) {
+        if (source instanceof ClassSource classSource) {
+            return classSource.getClassName();
+        }
+        if (source instanceof MethodSource methodSource) {
+            return String.format("%s#%s(%s)", methodSource.getClassName(), methodSource.getMethodName(),
+                    methodSource.getMethodParameterTypes());
+        }
+        return null;
+    }
+
+    public static boolean isClassKey(String key) {
+        return !key.contains("#");
+    }
+
+    /**
+     * @return whether {@code test.history.file} is set and readable, the only history shards may plan from
+     */
+    public static boolean hasSharedHistory() {
+        return !SHARED_FILE.isEmpty() && Files.isReadable(Path.of(SHARED_FILE));
+    }
+
+    /**
+     * @return the history as it was when this JVM started, loaded once
+     */
+    public static Map<String, Entry> previousRuns() {
+        Map<String, Entry> history = previousRuns;
+        if (history == null) {
+            history = Collections.unmodifiableMap(load());
+            previousRuns = history;
+        }
+        return history;
+    }
+
+    private static Map<String, Entry> load() {
+        if (!SHARED_FILE.isEmpty()) {
+            return hasSharedHistory() ? merge(List.of(Path.of(SHARED_FILE))) : new HashMap<>();
+        }
+        return merge(Path.of(DIR));
+    }
+
+    private static Map<String, Entry> merge(Path dir) {
+        if (!Files.isDirectory(dir)) {
+            return new HashMap<>();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return merge(files.filter(path -> path.getFileName().toString().startsWith("history-shard-")).sorted().toList());
+        } catch (IOException e) {
+            return new HashMap<>();
+        }
+    }
+
+    private static Map<String, Entry> merge(List<Path> files) {
+        Map<String, Entry> merged = new HashMap<>();
+        try {
+            for (Path file : files) {
+                Map<String, Entry> entries = mapper.readValue(file.toFile(), new TypeReference<>() {
+                });
+                entries.forEach((key, entry) -> merged.merge(key, entry, TestHistory::merge));
+            }
+        } catch (IOException e) {
+            // A corrupt history only costs balance and ordering, never the run
+            return new HashMap<>();
+        }
+        return merged;
+    }
+
+    /**
+     * Combines the entries of one test from two shard files. The entry with more runs is the newer one. Equal
+     * runs mean both shards ran the test, e.g. a class split over them: a failure on either shard counts, and
+     * the duration of a split class, which no shard measured whole, is the larger one. The result does not
+     * depend on the order of the files.
+     */
+    static Entry merge(Entry left, Entry right) {
+        if (left.runs() != right.runs()) {
+            return left.runs() > right.runs() ? left : right;
+        }
+        return new Entry(Math.max(left.durationMs(), right.durationMs()), left.runs(),
+                left.failedLastRun() || right.failedLastRun(),
+                Math.max(left.lastFailureEpochMs(), right.lastFailureEpochMs()));
+    }
+
+    /**
+     * Merges the {@code history-shard-*.json} files of a run into the history file for the next run.
+     *
+     * @param args the directory with the shard files, and the file to write
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: TestHistory <history dir> <history file>");
+        }
+        Path dir = Path.of(args[0]);
+        if (!Files.isDirectory(dir)) {
+            throw new IllegalArgumentException("No history directory " + dir);
+        }
+        Path target = Path.of(args[1]);
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        mapper.writeValue(target.toFile(), new TreeMap<>(merge(dir)));
+    }
+
+    /**
+     * Folds the results of this run into the history and writes this shard's file. A failed write only costs
+     * balance and ordering of the next run, so it is logged and the run goes on.
+     *
+     * @param durationsMs        durations of the classes and methods that ran
+     * @param partialDurationsMs durations of the classes that only partly ran on this shard, they keep their
+     *                           recorded duration and only get their run and failure updated
+     * @param failed             keys of the classes and methods that had a failure
+     * @param planned            keys of the classes and methods in this run's test plan, the only ones kept
+     */
+    public static void record(Map<String, Long> durationsMs, Map<String, Long> partialDurationsMs, Set<String> failed,
+                              Set<String> planned, int shardIndex) {
+        Map<String, Entry> history = fold(load(), durationsMs, partialDurationsMs, failed, planned,
+                System.currentTimeMillis());
+        Path file = Path.of(DIR, String.format(FILE_TEMPLATE, shardIndex));
+        try {
+            Files.createDirectories(file.getParent());
+            mapper.writeValue(file.toFile(), history);
+        } catch (IOException e) {
+            logger.warn("Could not write the test history to {}", file, e);
+        }
+    }
+
+    /**
+     * @return the entries of {@code previous} that are still planned, updated with the results of this run
+     */
+    static Map<String, Entry> fold(Map<String, Entry> previous, Map<String, Long> durationsMs,
+                                   Map<String, Long> partialDurationsMs, Set<String> failed, Set<String> planned,
+                                   long now) {
+        // Tests that were renamed or deleted drop out instead of being carried forever
+        Map<String, Entry> history = new TreeMap<>();
+        previous.forEach((key, entry) -> {
+            if (planned.contains(key)) {
+                history.put(key, entry);
+            }
+        });
+        durationsMs.forEach((key, durationMs) -> {
+            boolean hasFailed = failed.contains(key);
+            Entry old = history.get(key);
+            Entry current = old == null
+                    ? new Entry(durationMs, 1, hasFailed, hasFailed ? now : 0)
+                    : new Entry(Math.round(old.durationMs() * (1 - NEW_RUN_WEIGHT) + durationMs * NEW_RUN_WEIGHT),
+                    old.runs() + 1, hasFailed, hasFailed ? now : old.lastFailureEpochMs());
+            history.put(key, current);
+        });
+        partialDurationsMs.forEach((key, durationMs) -> {
+            boolean hasFailed = failed.contains(key);
+            Entry old = history.get(key);
+            // Without an earlier duration this shard's part is the best known lower bound
+            Entry current = old == null
+                    ? new Entry(durationMs, 1, hasFailed, hasFailed ? now : 0)
+                    : new Entry(old.durationMs(), old.runs() + 1, hasFailed, hasFailed ? now : old.lastFailureEpochMs());
+            history.put(key, current);
+        });
+        return history;
+    }
+}
@@ -0,0 +1,86 @@
+package utils;
+
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.engine.UniqueId;
+import org.junit.platform.engine.support.descriptor.MethodSource;
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.TestPlan;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records how long every test class and test method took, and which of them failed, into the
+ * {@link TestHistory}. Registered through {@code META-INF/services/org.junit.platform.launcher.TestExecutionListener}.
+ * <p>
+ * A class that {@link ShardPlan} split over several shards only runs partly here. Its time on this shard is
+ * recorded as partial and does not replace the duration of the whole class.
+ */
+public class TestHistoryListener implements TestExecutionListener {
+    private final Map<String, Long> startedAtNanos = new ConcurrentHashMap<>();
+    private final Map<String, Long> durationsMs = new ConcurrentHashMap<>();
+    private final Map<String, Long> partialDurationsMs = new ConcurrentHashMap<>();
+    private final Set<String> failed = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public void executionStarted(TestIdentifier identifier) {
+        String key = key(identifier);
+        // Single invocations share the key of their parameterized method, which is timed as a whole
+        if (key != null && !isInvocation(identifier)) {
+            startedAtNanos.put(identifier.getUniqueId(), System.nanoTime());
+        }
+    }
+
+    @Override
+    public void executionFinished(TestIdentifier identifier, TestExecutionResult result) {
+        String key = key(identifier);
+        if (key == null) {
+            return;
+        }
+        Long startedAt = startedAtNanos.remove(identifier.getUniqueId());
+        if (startedAt != null) {
+            long durationMs = (System.nanoTime() - startedAt) / 1_000_000;
+            (ShardPlan.isSplit(UniqueId.parse(identifier.getUniqueId())) ? partialDurationsMs : durationsMs).put(key, durationMs);
+        }
+        if (result.getStatus() == TestExecutionResult.Status.FAILED) {
+            failed.add(key);
+            identifier.getSource()
+                    .filter(MethodSource.class::isInstance)
+                    .map(source -> ((MethodSource) source).getClassName())
+                    .ifPresent(failed::add);
+        }
+    }
+
+    @Override
+    public void testPlanExecutionFinished(TestPlan testPlan) {
+        if (!durationsMs.isEmpty() || !partialDurationsMs.isEmpty()) {
+            TestHistory.record(durationsMs, partialDurationsMs, failed, plannedKeys(testPlan), ShardPlan.SHARD_INDEX);
+        }
+    }
+
+    /**
+     * @return the keys of every class and method of the plan, including the ones that were skipped
+     */
+    private static Set<String> plannedKeys(TestPlan testPlan) {
+        Set<String> keys = new HashSet<>();
+        for (TestIdentifier root : testPlan.getRoots()) {
+            testPlan.getDescendants(root).stream()
+                    .map(TestHistoryListener::key)
+                    .filter(Objects::nonNull)
+                    .forEach(keys::add);
+        }
+        return keys;
+    }
+
+    private static String key(TestIdentifier identifier) {
+        return identifier.getSource().map(TestHistory::key).orElse(null);
+    }
+
+    private static boolean isInvocation(TestIdentifier identifier) {
+        return identifier.getUniqueId().contains("-invocation:");
+    }
+}
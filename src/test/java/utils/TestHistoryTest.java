@@ -0,0 +1,56 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class TestHistoryTest {
+
+    @Test
+    void entryWithMoreRunsWins() {
+        TestHistory.Entry older = new TestHistory.Entry(900, 2, true, 5);
+        TestHistory.Entry newer = new TestHistory.Entry(100, 3, false, 5);
+
+        assertThat(TestHistory.merge(older, newer), is(newer));
+        assertThat(TestHistory.merge(newer, older), is(newer));
+    }
+
+    @Test
+    void tieKeepsTheLongerDurationAndEitherFailure() {
+        TestHistory.Entry left = new TestHistory.Entry(300, 4, true, 20);
+        TestHistory.Entry right = new TestHistory.Entry(700, 4, false, 10);
+        TestHistory.Entry expected = new TestHistory.Entry(700, 4, true, 20);
+
+        assertThat(TestHistory.merge(left, right), is(expected));
+        assertThat(TestHistory.merge(right, left), is(expected));
+    }
+
+    @Test
+    void foldDropsKeysThatAreNoLongerPlanned() {
+        Map<String, TestHistory.Entry> previous = Map.of(
+                "Kept", new TestHistory.Entry(100, 1, false, 0),
+                "Deleted", new TestHistory.Entry(100, 1, false, 0));
+
+        Map<String, TestHistory.Entry> history = TestHistory.fold(previous, Map.of(), Map.of(), Set.of(),
+                Set.of("Kept"), 1000);
+
+        assertThat(history, is(Map.of("Kept", new TestHistory.Entry(100, 1, false, 0))));
+    }
+
+    @Test
+    void foldAveragesFullRunsAndKeepsTheDurationOfSplitClasses() {
+        Map<String, TestHistory.Entry> previous = Map.of(
+                "Whole", new TestHistory.Entry(100, 1, false, 0),
+                "Split", new TestHistory.Entry(800, 1, false, 0));
+
+        Map<String, TestHistory.Entry> history = TestHistory.fold(previous, Map.of("Whole", 300L),
+                Map.of("Split", 200L), Set.of("Split"), Set.of("Whole", "Split"), 1000);
+
+        assertThat(history.get("Whole"), is(new TestHistory.Entry(200, 2, false, 0)));
+        assertThat(history.get("Split"), is(new TestHistory.Entry(800, 2, true, 1000)));
+    }
+}
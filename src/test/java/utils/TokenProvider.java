@@ -0,0 +1,109 @@
+package utils;
+
+import io.restassured.RestAssured;
+import io.restassured.response.Response;
+import model.dto.login.LoginRequest;
+import model.dto.login.LoginResponse;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static utils.ConstantUtils.*;
+import static utils.RequestSpecUtils.apiSpec;
+
+/**
+ * JVM wide holder of the {@code LOGIN_API} bearer token.
+ * <p>
+ * The token is fetched once per expiry window and shared by every test. Concurrent callers that find
+ * the token expired wait on a single in-flight login instead of each logging in, and a background
+ * refresh is scheduled at 80% of {@link LoginResponse#getTimeout()} so callers rarely block at all.
+ */
+public class TokenProvider {
+    private static final Logger logger = LogManager.getLogger(TokenProvider.class);
+    private static final int REFRESH_PERCENT = 80;
+    private static final int EXPIRY_PERCENT = 95;
+    private static final ReentrantLock refreshLock = new ReentrantLock();
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "token-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static volatile CachedToken current;
+    private static ScheduledFuture<?> scheduledRefresh;
+
+    private record CachedToken(String value, long expiresAtNanos) {
+        boolean isValid() {
+            return System.nanoTime() - expiresAtNanos < 0;
+        }
+    }
+
+    private TokenProvider() {
+    }
+
+    /**
+     * @return a valid {@code Authorization} header value, logging in only when no valid token is cached.
+     */
+    public static String getToken() {
+        CachedToken cached = current;
+        if (cached != null && cached.isValid()) {
+            return cached.value();
+        }
+        refreshLock.lock();
+        try {
+            // Another caller may have refreshed while we were waiting for the lock
+            cached = current;
+            if (cached == null || !cached.isValid()) {
+                cached = refresh();
+            }
+            return cached.value();
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private static CachedToken refresh() {
+        LoginRequest loginRequest = new LoginRequest("staff", "1234567890");
+        Response response = RestAssured.given(apiSpec())
+                .header(CONTENT_TYPE_HEADER, REQUEST_CONTENT_TYPE_HEADER_VALUE)
+                .body(loginRequest)
+                .post(LOGIN_API);
+        response.then().statusCode(200);
+        LoginResponse loginResponse = response.body().as(LoginResponse.class);
+        // Timeout is returned in milliseconds
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(loginResponse.getTimeout());
+        CachedToken token = new CachedToken(String.format("Bearer %s", loginResponse.getToken()),
+                System.nanoTime() + timeoutNanos * EXPIRY_PERCENT / 100);
+        current = token;
+        scheduleRefresh(timeoutNanos * REFRESH_PERCENT / 100);
+        return token;
+    }
+
+    private static void scheduleRefresh(long delayNanos) {
+        cancelScheduledRefresh();
+        scheduledRefresh = scheduler.schedule(TokenProvider::backgroundRefresh, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static void cancelScheduledRefresh() {
+        if (scheduledRefresh != null) {
+            scheduledRefresh.cancel(false);
+            scheduledRefresh = null;
+        }
+    }
+
+    private static void backgroundRefresh() {
+        refreshLock.lock();
+        try {
+            refresh();
+        } catch (RuntimeException | AssertionError e) {
+            // Keep the current token, callers fall back to a synchronous login once it expires
+            logger.warn("Background token refresh failed, keeping the current token until it expires", e);
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package utils;
+
+import io.restassured.RestAssured;
+import io.restassured.response.Response;
+import model.dao.user.AddressDao;
+import model.dao.user.UserDao;
+import model.dto.user.UserAddressRequest;
+import model.dto.user.UserRequest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static utils.ConstantUtils.*;
+import static utils.RequestSpecUtils.apiSpec;
+import static utils.TokenProvider.getToken;
+
+/**
+ * Pool of ready-made users for tests that only need "some valid user" as a precondition, so they do not
+ * pay a create round trip each.
+ * <p>
+ * {@link #prefill()}, called from a {@code @BeforeAll}, provisions {@code user_pool_size} users in one go,
+ * either with concurrent {@code CREATE_USER_API} calls ({@code user_pool_provisioning=api}, default) or with
+ * one batched insert through {@link DbUtils} ({@code user_pool_provisioning=db}). Size it to the number of
+ * tests that acquire a pooled user. {@link #acquireExclusive()} hands each user to one test only, so the test
+ * may change it (add cards, update fields...); when the pool is empty it creates the user on the spot. Every
+ * pooled user is registered with the {@link CleanupRegistry}.
+ */
+public class UserFixturePool {
+    private static final String PROVISIONING = EnvUtils.Env().get("user_pool_provisioning", "api");
+    private static final int SIZE = Integer.parseInt(EnvUtils.Env().get("user_pool_size", "1"));
+    private static final BlockingQueue<PooledUser> available = new LinkedBlockingQueue<>();
+
+    /**
+     * @param id      id returned by the API, or generated for inserted users
+     * @param request the data the user was created with, to build expectations from
+     */
+    public record PooledUser(String id, UserRequest request) {
+    }
+
+    private UserFixturePool() {
+    }
+
+    /**
+     * Tops the pool up to {@code user_pool_size} users, all provisioned at once.
+     */
+    public static synchronized void prefill() {
+        available.addAll(provision(SIZE - available.size()));
+    }
+
+    public static PooledUser acquireExclusive() {
+        PooledUser user = available.poll();
+        // More acquires than user_pool_size, create one for this caller
+        return user != null ? user : provision(1).get(0);
+    }
+
+    private static List<PooledUser> provision(int count) {
+        if (count <= 0) {
+            return List.of();
+        }
+        List<UserRequest> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            UserRequest request = TestDataGenerator.userRequest();
+            request.setAddresses(List.of(UserAddressRequest.getDefault()));
+            requests.add(request);
+        }
+        List<PooledUser> users = "db".equals(PROVISIONING) ? insert(requests) : create(requests);
+        users.forEach(user -> CleanupRegistry.registerUser(user.id()));
+        return users;
+    }
+
+    private static List<PooledUser> create(List<UserRequest> requests) {
+        List<Response> responses = ConcurrentRequestUtils.sendAll(requests, request -> RestAssured.given(apiSpec())
+                .header(CONTENT_TYPE_HEADER, REQUEST_CONTENT_TYPE_HEADER_VALUE)
+                .header(AUTHORIZATION_HEADER, getToken())
+                .body(request)
+                .post(CREATE_USER_API));
+        List<PooledUser> users = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            Response response = responses.get(i);
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException(String.format("Could not create a pooled user, status %d: %s",
+                        response.statusCode(), response.asString()));
+            }
+            users.add(new PooledUser(response.jsonPath().getString("id"), requests.get(i)));
+        }
+        return users;
+    }
+
+    private static List<PooledUser> insert(List<UserRequest> requests) {
+        LocalDateTime now = LocalDateTime.now();
+        List<UserDao> daos = new ArrayList<>(requests.size());
+        List<PooledUser> users = new ArrayList<>(requests.size());
+        for (UserRequest request : requests) {
+            UserDao user = new UserDao();
+            user.setId(UUID.randomUUID());
+            user.setFirstName(request.getFirstName());
+            user.setLastName(request.getLastName());
+            user.setMiddleName(request.getMiddleName());
+            user.setBirthday(request.getBirthday());
+            user.setEmail(request.getEmail());
+            user.setPhone(request.getPhone());
+            user.setCreatedAt(now);
+            user.setUpdatedAt(now);
+            List<AddressDao> addresses = new ArrayList<>();
+            for (UserAddressRequest addressRequest : request.getAddresses()) {
+                AddressDao address = new AddressDao();
+                address.setId(UUID.randomUUID());
+                address.setCustomerId(user.getId());
+                address.setStreetNumber(addressRequest.getStreetNumber());
+                address.setStreet(addressRequest.getStreet());
+                address.setWard(addressRequest.getWard());
+                address.setDistrict(addressRequest.getDistrict());
+                address.setCity(addressRequest.getCity());
+                address.setState(addressRequest.getState());
+                address.setZip(addressRequest.getZip());
+                address.setCountry(addressRequest.getCountry());
+                address.setCreatedAt(now);
+                address.setUpdatedAt(now);
+                addresses.add(address);
+            }
+            user.setAddresses(addresses);
+            daos.add(user);
+            users.add(new PooledUser(user.getId().toString(), request));
+        }
+        DbUtils.insertUsers(daos);
+        return users;
+    }
+}